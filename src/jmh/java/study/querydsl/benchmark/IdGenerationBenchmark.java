@@ -0,0 +1,73 @@
+package study.querydsl.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import study.querydsl.QuerydslApplication;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.service.MemberBulkLoader;
+
+/**
+ * 시퀀스 allocation size 별 insert 처리량 비교. 점수는 초당 적재한 Member 수다.
+ * 1 은 insert 마다 시퀀스를 조회하는 경우, 50 은 이전 @GeneratedValue 기본값, 1000 은 현재 설정이다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class IdGenerationBenchmark {
+
+	static final int MEMBERS = 10_000;
+
+	@Param({"1", "50", "1000"})
+	public int allocationSize;
+
+	ConfigurableApplicationContext context;
+	MemberBulkLoader loader;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new SpringApplicationBuilder(QuerydslApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(
+						"--spring.profiles.active=benchmark",
+						"--spring.datasource.url=jdbc:h2:mem:id-benchmark-" + allocationSize,
+						"--spring.jpa.properties.study.id.allocation_size=" + allocationSize,
+						"--logging.level.org.hibernate.SQL=info",
+						"--logging.level.study.querydsl=warn");
+		loader = context.getBean(MemberBulkLoader.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MEMBERS)
+	public long insert() {
+		Team team = new Team("team");
+		Stream<Member> members = IntStream.range(0, MEMBERS).mapToObj(i -> {
+			Member member = new Member("member" + i, i % 100);
+			member.setTeam(team);
+			return member;
+		});
+		return loader.load(Stream.concat(Stream.of(team), members)).rows();
+	}
+}
@@ -0,0 +1,73 @@
+package study.querydsl.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class MemberSearchBenchmark {
+
+	MemberJpaRepository memberJpaRepository;
+	MemberRepository memberRepository;
+	MemberSearchCondition condition;
+	PageRequest pageRequest;
+	String userName;
+
+	@Setup
+	public void setUp(SeededDatabase database) {
+		memberJpaRepository = database.getBean(MemberJpaRepository.class);
+		memberRepository = database.getBean(MemberRepository.class);
+		
+		condition = new MemberSearchCondition();
+		condition.setTeamName("team3");
+		condition.setAgeGoe(20);
+		condition.setAgeLoe(40);
+		pageRequest = PageRequest.of(2, 20, Sort.by("age"));
+		userName = "member" + database.members / 2;
+	}
+
+	//조건 조합별로 미리 직렬화한 JPQL 에 값만 바인딩하고, teamName 은 team_id 조건으로 바꾼다
+	@Benchmark
+	public List<MemberTeamDto> search() {
+		return memberJpaRepository.search(condition);
+	}
+
+	//요청마다 BooleanBuilder 로 조건을 쌓고 team.name 으로 join 해서 거른다
+	@Benchmark
+	public List<MemberTeamDto> searchBybuilder() {
+		return memberJpaRepository.searchBybuilder(condition);
+	}
+
+	@Benchmark
+	public Page<MemberTeamDto> searchpageComplex() {
+		return memberRepository.searchpageComplex(condition, pageRequest);
+	}
+
+	@Benchmark
+	public List<Member> findByUserName_Jpql() {
+		return memberJpaRepository.findByUserName(userName);
+	}
+
+	@Benchmark
+	public List<Member> findByUserName_Querydsl() {
+		return memberJpaRepository.findByUserName_Querydsl(userName);
+	}
+}
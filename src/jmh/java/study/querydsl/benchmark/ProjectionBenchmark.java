@@ -0,0 +1,83 @@
+package study.querydsl.benchmark;
+
+import static study.querydsl.entity.QMember.member;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import com.querydsl.core.types.Projections;
+
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.projection.GeneratedProjections;
+
+/**
+ * QuerydslBasicTest 에서 쓰는 네 가지 DTO 조회 방식과 GeneratedProjections 를 같은 데이터로 비교한다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProjectionBenchmark {
+
+	@Benchmark
+	public List<MemberDto> bean(SeededDatabase database) {
+		return database.queryFactory
+				.select(Projections.bean(MemberDto.class, 
+						member.userName, 
+						member.age))
+				.from(member)
+				.fetch();
+	}
+
+	@Benchmark
+	public List<MemberDto> fields(SeededDatabase database) {
+		return database.queryFactory
+				.select(Projections.fields(MemberDto.class, 
+						member.userName, 
+						member.age))
+				.from(member)
+				.fetch();
+	}
+
+	@Benchmark
+	public List<MemberDto> constructor(SeededDatabase database) {
+		return database.queryFactory
+				.select(Projections.constructor(MemberDto.class, 
+						member.userName, 
+						member.age))
+				.from(member)
+				.fetch();
+	}
+
+	@Benchmark
+	public List<MemberDto> queryProjection(SeededDatabase database) {
+		return database.queryFactory
+				.select(new QMemberDto(member.userName, member.age))
+				.from(member)
+				.fetch();
+	}
+
+	@Benchmark
+	public List<MemberDto> generatedBean(SeededDatabase database) {
+		return database.queryFactory
+				.select(GeneratedProjections.bean(MemberDto.class, 
+						member.userName, 
+						member.age))
+				.from(member)
+				.fetch();
+	}
+
+	@Benchmark
+	public List<MemberDto> generatedFields(SeededDatabase database) {
+		return database.queryFactory
+				.select(GeneratedProjections.fields(MemberDto.class, 
+						member.userName, 
+						member.age))
+				.from(member)
+				.fetch();
+	}
+}
@@ -0,0 +1,77 @@
+package study.querydsl.benchmark;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.projection.GeneratedProjections;
+
+/**
+ * DB 없이 한 행(Object[])을 DTO 로 만드는 비용만 비교한다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ProjectionMappingBenchmark {
+
+	final Object[] memberRow = {"member1", 10};
+	final Object[] memberTeamRow = {1L, "member1", 10, 2L, "teamA"};
+
+	final FactoryExpression<MemberDto> bean = Projections.bean(MemberDto.class, member.userName, member.age);
+	final FactoryExpression<MemberDto> generatedBean = GeneratedProjections.bean(MemberDto.class, member.userName, member.age);
+	final FactoryExpression<MemberDto> fields = Projections.fields(MemberDto.class, member.userName, member.age);
+	final FactoryExpression<MemberDto> generatedFields = GeneratedProjections.fields(MemberDto.class, member.userName, member.age);
+	final FactoryExpression<MemberTeamDto> constructor = Projections.constructor(MemberTeamDto.class, 
+			member.id, member.userName, member.age, team.id, team.name);
+	final FactoryExpression<MemberTeamDto> generatedConstructor = GeneratedProjections.constructor(MemberTeamDto.class, 
+			member.id, member.userName, member.age, team.id, team.name);
+
+	@Benchmark
+	public MemberDto bean() {
+		return bean.newInstance(memberRow);
+	}
+
+	@Benchmark
+	public MemberDto generatedBean() {
+		return generatedBean.newInstance(memberRow);
+	}
+
+	@Benchmark
+	public MemberDto fields() {
+		return fields.newInstance(memberRow);
+	}
+
+	@Benchmark
+	public MemberDto generatedFields() {
+		return generatedFields.newInstance(memberRow);
+	}
+
+	@Benchmark
+	public MemberTeamDto constructor() {
+		return constructor.newInstance(memberTeamRow);
+	}
+
+	@Benchmark
+	public MemberTeamDto generatedConstructor() {
+		return generatedConstructor.newInstance(memberTeamRow);
+	}
+
+	@Benchmark
+	public MemberTeamDto handWritten() {
+		Object[] row = memberTeamRow;
+		return new MemberTeamDto((Long) row[0], (String) row[1], (Integer) row[2], (Long) row[3], (String) row[4]);
+	}
+}
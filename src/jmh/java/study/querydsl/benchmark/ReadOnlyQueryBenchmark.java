@@ -0,0 +1,58 @@
+package study.querydsl.benchmark;
+
+import static study.querydsl.entity.QMember.member;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.jpa.HibernateHints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * 쓰기 트랜잭션 안에서 전체 Member 를 읽고 flush 할 때 스냅샷 유무의 차이를 본다.
+ * 요청당 힙 사용량은 -prof gc 의 gc.alloc.rate.norm 으로 확인한다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ReadOnlyQueryBenchmark {
+
+	EntityManager em;
+	TransactionTemplate transactionTemplate;
+
+	@Setup
+	public void setUp(SeededDatabase database) {
+		em = database.em;
+		transactionTemplate = database.getBean(TransactionTemplate.class);
+	}
+
+	@Benchmark
+	public int managed(SeededDatabase database) {
+		return transactionTemplate.execute(status -> {
+			int size = database.queryFactory.selectFrom(member).fetch().size();
+			em.flush();
+			return size;
+		});
+	}
+
+	@Benchmark
+	public int readOnly(SeededDatabase database) {
+		return transactionTemplate.execute(status -> {
+			int size = database.queryFactory
+					.selectFrom(member)
+					.setHint(HibernateHints.HINT_READ_ONLY, true)
+					.fetch()
+					.size();
+			em.flush();
+			return size;
+		});
+	}
+}
@@ -0,0 +1,71 @@
+package study.querydsl.benchmark;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.service.MemberBulkLoader;
+
+/**
+ * members 건의 Member 를 10개 Team 에 나눠 적재한 in-memory H2 위에 애플리케이션 컨텍스트를 띄운다.
+ * 결과 캐시는 끄고 측정한다.
+ */
+@State(Scope.Benchmark)
+public class SeededDatabase {
+
+	static final int TEAMS = 10;
+
+	@Param({"1000", "10000", "100000"})
+	public int members;
+
+	ConfigurableApplicationContext context;
+	EntityManager em;
+	JPAQueryFactory queryFactory;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = new SpringApplicationBuilder(QuerydslApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(
+						"--spring.profiles.active=benchmark",
+						"--spring.datasource.url=jdbc:h2:mem:benchmark-" + members,
+						"--member.search.cache.enabled=false",
+						"--logging.level.org.hibernate.SQL=info",
+						"--logging.level.study.querydsl=warn");
+		em = context.getBean(EntityManager.class);
+		queryFactory = new JPAQueryFactory(em);
+		
+		List<Team> teams = IntStream.range(0, TEAMS).mapToObj(i -> new Team("team" + i)).toList();
+		Stream<Member> rows = IntStream.range(0, members).mapToObj(i -> {
+			Member member = new Member("member" + i, i % 100);
+			member.setTeam(teams.get(i % TEAMS));
+			return member;
+		});
+		context.getBean(MemberBulkLoader.class).load(Stream.concat(teams.stream(), rows));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	<T> T getBean(Class<T> type) {
+		return context.getBean(type);
+	}
+}
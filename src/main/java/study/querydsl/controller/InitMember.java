@@ -1,15 +1,16 @@
 package study.querydsl.controller;
 
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.service.MemberBulkLoader;
 
 @Profile("local")
 @Component
@@ -24,20 +25,20 @@ public class InitMember {
 	}
 	
 	@Component
+	@RequiredArgsConstructor
 	static class InitMemberService {
-		@PersistenceContext EntityManager em;
+		private final MemberBulkLoader memberBulkLoader;
 		
-		@Transactional
 		public void init() {
 			Team teamA = new Team("teamA");
 			Team teamB = new Team("teamB");
-			em.persist(teamA);
-			em.persist(teamB);
 			
-			for(int i = 0; i < 100; i++) {
-				Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-				em.persist(new Member("member"+1, i, selectedTeam));  
-			}
+			Stream<Member> members = IntStream.range(0, 100).mapToObj(i -> {
+				Member member = new Member("member"+1, i);
+				member.setTeam(i % 2 == 0 ? teamA : teamB);
+				return member;
+			});
+			memberBulkLoader.load(Stream.concat(Stream.of(teamA, teamB), members));
 		}
 	}
 }
@@ -4,14 +4,23 @@ import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import lombok.RequiredArgsConstructor;
+import study.querydsl.dto.MemberCursorResult;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.InvalidCursorException;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.service.MemberStreamService;
 
 @RestController
 @RequiredArgsConstructor
@@ -19,14 +28,35 @@ public class MemberController {
 
 	private final MemberJpaRepository memberJpaRepository;
 	private final MemberRepository memberRepository;
+	private final MemberStreamService memberStreamService;
 	
 	@GetMapping("/v1/members")
 	public List<MemberTeamDto> searchMeberV1(MemberSearchCondition condition) {
 		return memberJpaRepository.search(condition);
 	}
 	
+	@GetMapping(value = "/v1/members/stream", produces = "application/x-ndjson")
+	public StreamingResponseBody streamMemberV1(MemberSearchCondition condition) {
+		return out -> memberStreamService.writeNdjson(condition, out);
+	}
+	
 	@GetMapping("/v3/members")
 	public Page<MemberTeamDto> searchMeberV2(MemberSearchCondition condition, Pageable pageable) {
 		return memberRepository.searchpageComplex(condition, pageable);
 	}
+	
+	@GetMapping("/v4/members")
+	public MemberCursorResult searchMemberV4(MemberSearchCondition condition, Sort sort, 
+			@RequestParam(required = false) String cursor, 
+			@RequestParam(defaultValue = "20") int size) {
+		return memberRepository.searchAfter(condition, sort, cursor, size);
+	}
+	
+	//커서는 클라이언트가 보낸 값이므로 응답에 되돌려 주지 않는다
+	@ExceptionHandler(InvalidCursorException.class)
+	public ResponseEntity<String> invalidCursor(InvalidCursorException e) {
+		return ResponseEntity.badRequest()
+				.contentType(MediaType.TEXT_PLAIN)
+				.body("Invalid cursor");
+	}
 }
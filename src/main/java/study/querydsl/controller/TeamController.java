@@ -0,0 +1,22 @@
+package study.querydsl.controller;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.RequiredArgsConstructor;
+import study.querydsl.dto.TeamRosterDto;
+import study.querydsl.repository.TeamRepository;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+	private final TeamRepository teamRepository;
+	
+	@GetMapping("/teams")
+	public Page<TeamRosterDto> teamRosters(Pageable pageable) {
+		return teamRepository.findRosters(pageable);
+	}
+}
@@ -0,0 +1,77 @@
+package study.querydsl.datasource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 실제 커넥션을 첫 쿼리 때까지 미뤄서 읽기 전용 트랜잭션이면 복제본에서, 아니면 primary 에서 꺼낸다.
+ * 복제본이 없으면 primary 만 쓰고, 읽기 전용 트랜잭션이라도 쿼리를 하지 않으면 커넥션을 잡지 않는다.
+ * 각 풀은 pool 태그(primary, replica-0, ...)로 hikaricp.connections.* 지표를 남긴다.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class DataSourceRoutingConfig {
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("primary");
+		return dataSource;
+	}
+
+	@Bean
+	ReplicaRoutingDataSource replicaDataSource(HikariDataSource primaryDataSource, ReplicaProperties properties,
+			MeterRegistry meterRegistry) {
+		List<HikariDataSource> replicas = new ArrayList<>();
+		for (int i = 0; i < properties.getReplicas().size(); i++) {
+			replicas.add(replica(primaryDataSource, properties.getReplicas().get(i), "replica-" + i, meterRegistry));
+		}
+		return new ReplicaRoutingDataSource(primaryDataSource, replicas, properties.getLagQuery(),
+				properties.getMaxLag(), properties.getCheckInterval(), meterRegistry);
+	}
+
+	@Bean
+	@Primary
+	LazyConnectionDataSourceProxy dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaDataSource,
+			ReplicaProperties properties) {
+		LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+		if(!properties.getReplicas().isEmpty()) {
+			dataSource.setReadOnlyDataSource(replicaDataSource);
+		}
+		return dataSource;
+	}
+
+	//primary 의 풀 설정을 복사하고 주소와 계정만 바꾼다. 풀은 첫 커넥션 요청 때 만들어진다
+	private HikariDataSource replica(HikariDataSource primary, ReplicaProperties.Replica properties, String poolName,
+			MeterRegistry meterRegistry) {
+		HikariConfig config = new HikariConfig();
+		primary.copyStateTo(config);
+		config.setPoolName(poolName);
+		config.setJdbcUrl(properties.getUrl());
+		if(properties.getUsername() != null) {
+			config.setUsername(properties.getUsername());
+			config.setPassword(properties.getPassword());
+		}
+		config.setReadOnly(true);
+		config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+		HikariDataSource dataSource = new HikariDataSource();
+		config.copyStateTo(dataSource);
+		return dataSource;
+	}
+}
@@ -0,0 +1,30 @@
+package study.querydsl.datasource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 읽기 전용 트랜잭션을 보낼 복제본 목록. 풀 설정은 spring.datasource.hikari 를 그대로 따른다.
+ * lagQuery 는 복제본에서 지연 시간을 초 단위 숫자 하나로 돌려주는 쿼리다. 없으면 연결만 확인한다.
+ */
+@Getter @Setter
+@ConfigurationProperties("member.datasource")
+public class ReplicaProperties {
+	private List<Replica> replicas = new ArrayList<>();
+	private String lagQuery;
+	private Duration maxLag = Duration.ofSeconds(5);
+	private Duration checkInterval = Duration.ofSeconds(1);
+
+	@Getter @Setter
+	public static class Replica {
+		private String url;
+		private String username;
+		private String password;
+	}
+}
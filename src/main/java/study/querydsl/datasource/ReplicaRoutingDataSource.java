@@ -0,0 +1,150 @@
+package study.querydsl.datasource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 읽기 전용 커넥션을 복제본에서 돌아가며 꺼낸다.
+ * 주기적으로 lagQuery 로 지연을 재서 maxLag 를 넘거나 연결이 안 되는 복제본은 건너뛰고, 쓸 복제본이 없으면 primary 로 간다.
+ * 첫 확인이 끝나기 전까지는 모든 복제본을 쓸 수 없는 것으로 본다.
+ * 계정을 넘기는 getConnection 도 같은 순서로 고르지만, 풀은 설정된 계정으로만 커넥션을 만들므로 풀을 거치지 않고 새로 연결한다.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+	private final HikariDataSource primary;
+	private final List<Replica> replicas;
+	private final String lagQuery;
+	private final Duration maxLag;
+	private final AtomicInteger next = new AtomicInteger();
+	private final ScheduledExecutorService scheduler;
+
+	public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, String lagQuery,
+			Duration maxLag, Duration checkInterval, MeterRegistry meterRegistry) {
+		this.primary = primary;
+		this.replicas = replicas.stream().map(Replica::new).toList();
+		this.lagQuery = lagQuery;
+		this.maxLag = maxLag;
+		for (Replica replica : this.replicas) {
+			Gauge.builder("member.datasource.replica.lag", replica, r -> r.lagSeconds)
+					.tag("pool", replica.dataSource.getPoolName())
+					.baseUnit("seconds")
+					.register(meterRegistry);
+			Gauge.builder("member.datasource.replica.available", replica, r -> isUsable(r) ? 1 : 0)
+					.tag("pool", replica.dataSource.getPoolName())
+					.register(meterRegistry);
+		}
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "replica-lag-check");
+			thread.setDaemon(true);
+			return thread;
+		});
+		if(!this.replicas.isEmpty()) {
+			scheduler.scheduleWithFixedDelay(this::checkReplicas, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return route(HikariDataSource::getConnection, true);
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return route(dataSource -> {
+			Connection connection = DriverManager.getConnection(dataSource.getJdbcUrl(), username, password);
+			connection.setReadOnly(dataSource.isReadOnly());
+			return connection;
+		}, false);
+	}
+
+	private Connection route(ConnectionFactory factory, boolean pooled) throws SQLException {
+		int size = replicas.size();
+		if(size == 0) {
+			return factory.connect(primary);
+		}
+		int start = Math.floorMod(next.getAndIncrement(), size);
+		for (int i = 0; i < size; i++) {
+			Replica replica = replicas.get((start + i) % size);
+			if(!isUsable(replica)) {
+				continue;
+			}
+			try {
+				return factory.connect(replica.dataSource);
+			} catch (SQLException e) {
+				//풀에서 못 받으면 다음 확인 때까지 건너뛴다. 넘겨받은 계정이 틀려서 실패한 것일 수 있으므로 직접 연결은 표시하지 않는다
+				if(pooled) {
+					replica.available = false;
+				}
+				log.warn("replica {} unavailable: {}", replica.dataSource.getPoolName(), e.getMessage());
+			}
+		}
+		return factory.connect(primary);
+	}
+
+	/**
+	 * 각 복제본의 지연을 다시 잰다. 스케줄러가 checkInterval 마다 부른다.
+	 */
+	public void checkReplicas() {
+		for (Replica replica : replicas) {
+			try (Connection connection = replica.dataSource.getConnection()) {
+				replica.lagSeconds = lagQuery == null ? 0 : lagSeconds(connection);
+				replica.available = true;
+			} catch (SQLException e) {
+				replica.available = false;
+				log.warn("replica {} check failed: {}", replica.dataSource.getPoolName(), e.getMessage());
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+		replicas.forEach(replica -> replica.dataSource.close());
+	}
+
+	private double lagSeconds(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery(lagQuery)) {
+			return resultSet.next() ? resultSet.getDouble(1) : 0;
+		}
+	}
+
+	private boolean isUsable(Replica replica) {
+		return replica.available && replica.lagSeconds * 1000 <= maxLag.toMillis();
+	}
+
+	@FunctionalInterface
+	private interface ConnectionFactory {
+		Connection connect(HikariDataSource dataSource) throws SQLException;
+	}
+
+	private static final class Replica {
+		private final HikariDataSource dataSource;
+		private volatile boolean available;
+		private volatile double lagSeconds;
+
+		Replica(HikariDataSource dataSource) {
+			this.dataSource = dataSource;
+		}
+	}
+}
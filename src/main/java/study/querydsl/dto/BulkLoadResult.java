@@ -0,0 +1,11 @@
+package study.querydsl.dto;
+
+import java.time.Duration;
+
+public record BulkLoadResult(long rows, Duration elapsed) {
+
+	public double rowsPerSecond() {
+		long millis = Math.max(elapsed.toMillis(), 1);
+		return rows * 1000.0 / millis;
+	}
+}
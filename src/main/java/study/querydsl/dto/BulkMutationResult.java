@@ -0,0 +1,11 @@
+package study.querydsl.dto;
+
+import java.time.Duration;
+
+public record BulkMutationResult(long rows, int chunks, Long lastMemberId, Duration elapsed) {
+
+	public double rowsPerSecond() {
+		long millis = Math.max(elapsed.toMillis(), 1);
+		return rows * 1000.0 / millis;
+	}
+}
@@ -0,0 +1,13 @@
+package study.querydsl.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class MemberCursorResult {
+	private List<MemberTeamDto> content;
+	private String nextCursor;
+}
@@ -0,0 +1,23 @@
+package study.querydsl.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * members 는 팀마다 앞에서부터 최대 TeamRepositoryImpl.MAX_MEMBERS_PER_TEAM 명이고, memberCount 가 팀의 전체 회원 수다.
+ */
+@Data
+public class TeamRosterDto {
+	private Long teamId;
+	private String teamName;
+	private long memberCount;
+	private List<MemberDto> members;
+	
+	public TeamRosterDto(Long teamId, String teamName, long memberCount, List<MemberDto> members) {
+		this.teamId = teamId;
+		this.teamName = teamName;
+		this.memberCount = memberCount;
+		this.members = members;
+	}
+}
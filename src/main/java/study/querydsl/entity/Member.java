@@ -1,12 +1,18 @@
 package study.querydsl.entity;
 
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -19,8 +25,15 @@ import lombok.ToString;
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Entity
+@Table(indexes = {
+		@Index(name = "idx_member_user_name", columnList = "userName"),
+		@Index(name = "idx_member_team_id_age", columnList = "team_id, age"),
+		@Index(name = "idx_member_age", columnList = "age")
+})
 public class Member {
-	@Id @GeneratedValue
+	@Id @GeneratedValue(generator = "member_seq")
+	@GenericGenerator(name = "member_seq", type = PooledLoSequenceGenerator.class, 
+			parameters = @Parameter(name = "sequence_name", value = "member_seq"))
 	@Column(name = "member_id")
 	long id;
 	private String userName;
@@ -49,8 +62,21 @@ public class Member {
 		 }
 	}
 	
+	/**
+	 * 양쪽 Team.members 는 이미 메모리에 올라와 있을 때만 고친다.
+	 * 초기화되지 않은 컬렉션(또는 Team 프록시)은 건드리지 않으므로 팀 크기와 상관없이 컬렉션을 읽지 않는다.
+	 */
 	public void changeTeam(Team team) {
+		if(isLoaded(this.team)) {
+			this.team.getMembers().remove(this);
+		}
 		this.team = team;
-		team.getMembers().add(this);
+		if(isLoaded(team)) {
+			team.getMembers().add(this);
+		}
+	}
+	
+	private static boolean isLoaded(Team team) {
+		return team != null && Hibernate.isInitialized(team) && Hibernate.isInitialized(team.getMembers());
 	}
 }
@@ -0,0 +1,151 @@
+package study.querydsl.event;
+
+import java.util.function.Supplier;
+
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * Member, Team 의 insert/update/delete 가 커밋된 뒤 스프링 이벤트로 다시 발행한다.
+ * 캐시처럼 커밋된 데이터만 봐야 하는 쪽은 이 이벤트를 구독하면 된다.
+ */
+@Component
+public class EntityChangeEventPublisher implements PostCommitInsertEventListener, 
+		PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+	private final ThreadLocal<Boolean> suppressed = ThreadLocal.withInitial(() -> false);
+	private final EntityManagerFactory emf;
+	private final ApplicationEventPublisher eventPublisher;
+	
+	public EntityChangeEventPublisher(EntityManagerFactory emf, ApplicationEventPublisher eventPublisher) {
+		this.emf = emf;
+		this.eventPublisher = eventPublisher;
+	}
+	
+	@PostConstruct
+	public void register() {
+		EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry()
+				.getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+		registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+		registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+	}
+
+	/**
+	 * 대량 적재처럼 행 단위 이벤트가 의미 없는 작업은 이 안에서 실행하고, 끝난 뒤 벌크 이벤트를 직접 발행한다.
+	 * 억제된 동안에는 커밋 후 처리 자체를 등록하지 않으므로 트랜잭션이 커도 메모리가 쌓이지 않는다.
+	 */
+	public <T> T withoutEvents(Supplier<T> work) {
+		boolean previous = suppressed.get();
+		suppressed.set(true);
+		try {
+			return work.get();
+		} finally {
+			suppressed.set(previous);
+		}
+	}
+
+	@Override
+	public boolean requiresPostCommitHandling(EntityPersister persister) {
+		if(suppressed.get()) {
+			return false;
+		}
+		Class<?> type = persister.getMappedClass();
+		return type == Member.class || type == Team.class;
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		publish(event.getPersister(), event.getId(), null, event.getState());
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		publish(event.getPersister(), event.getId(), event.getOldState(), event.getState());
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		publish(event.getPersister(), event.getId(), event.getDeletedState(), null);
+	}
+
+	@Override
+	public void onPostInsertCommitFailed(PostInsertEvent event) {
+	}
+
+	@Override
+	public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+	}
+
+	@Override
+	public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+	}
+	
+	//2차 캐시에 쓰는 엔티티는 requiresPostCommitHandling 과 상관없이 커밋 후 처리가 불리므로 여기서도 거른다
+	private void publish(EntityPersister persister, Object id, Object[] before, Object[] after) {
+		if(suppressed.get()) {
+			return;
+		}
+		String[] names = persister.getPropertyNames();
+		if(persister.getMappedClass() == Member.class) {
+			Long memberId = (Long) id;
+			eventPublisher.publishEvent(new MemberChangedEvent(memberId, 
+					memberState(memberId, names, before), memberState(memberId, names, after)));
+		} else {
+			eventPublisher.publishEvent(new TeamChangedEvent((Long) id, 
+					(String) value(names, before, "name"), (String) value(names, after, "name")));
+		}
+	}
+
+	private MemberTeamDto memberState(Long memberId, String[] names, Object[] state) {
+		if(state == null) {
+			return null;
+		}
+		Team team = (Team) value(names, state, "team");
+		return new MemberTeamDto(memberId, 
+				(String) value(names, state, "userName"), 
+				(Integer) value(names, state, "age"), 
+				teamId(team), 
+				team != null && Hibernate.isInitialized(team) ? team.getName() : null);
+	}
+
+	private Long teamId(Team team) {
+		if(team == null) {
+			return null;
+		}
+		LazyInitializer lazyInitializer = HibernateProxy.extractLazyInitializer(team);
+		return lazyInitializer == null ? team.getId() : (Long) lazyInitializer.getInternalIdentifier();
+	}
+
+	private Object value(String[] names, Object[] state, String name) {
+		if(state == null) {
+			return null;
+		}
+		for(int i = 0; i < names.length; i++) {
+			if(names[i].equals(name)) {
+				return state[i];
+			}
+		}
+		throw new IllegalArgumentException("Unknown property: " + name);
+	}
+}
@@ -0,0 +1,7 @@
+package study.querydsl.event;
+
+/**
+ * 벌크 update/delete 처럼 엔티티 이벤트를 거치지 않고 member 테이블이 바뀐 경우에 발행한다.
+ */
+public record MemberBulkChangedEvent() {
+}
@@ -0,0 +1,10 @@
+package study.querydsl.event;
+
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * 커밋된 Member 한 건의 변경. insert 면 before 가, delete 면 after 가 null 이다.
+ * team 프록시가 초기화되지 않은 상태였다면 teamId 는 있고 teamName 은 null 이다.
+ */
+public record MemberChangedEvent(Long memberId, MemberTeamDto before, MemberTeamDto after) {
+}
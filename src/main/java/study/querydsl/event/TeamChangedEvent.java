@@ -0,0 +1,7 @@
+package study.querydsl.event;
+
+/**
+ * 커밋된 Team 한 건의 변경. insert 면 nameBefore 가, delete 면 nameAfter 가 null 이다.
+ */
+public record TeamChangedEvent(Long teamId, String nameBefore, String nameAfter) {
+}
@@ -0,0 +1,15 @@
+package study.querydsl.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate 가 준비하는 SQL 문마다 현재 요청의 QueryStats 에 하나씩 센다.
+ */
+public class CountingStatementInspector implements StatementInspector {
+
+	@Override
+	public String inspect(String sql) {
+		QueryStats.addStatement();
+		return sql;
+	}
+}
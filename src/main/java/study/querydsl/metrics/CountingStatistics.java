@@ -0,0 +1,20 @@
+package study.querydsl.metrics;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+
+/**
+ * Hibernate 통계를 그대로 모으면서, 쿼리가 돌려준 행 수를 현재 요청의 QueryStats 에도 더한다.
+ */
+public class CountingStatistics extends StatisticsImpl {
+
+	public CountingStatistics(SessionFactoryImplementor sessionFactory) {
+		super(sessionFactory);
+	}
+
+	@Override
+	public void queryExecuted(String hql, int rows, long time) {
+		super.queryExecuted(hql, rows, time);
+		QueryStats.addRows(rows);
+	}
+}
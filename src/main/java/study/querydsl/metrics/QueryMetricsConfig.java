@@ -0,0 +1,29 @@
+package study.querydsl.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class QueryMetricsConfig {
+
+	//@Timed 를 붙인 빈의 메서드 실행 시간을 잰다
+	@Bean
+	TimedAspect timedAspect(MeterRegistry meterRegistry) {
+		return new TimedAspect(meterRegistry);
+	}
+	
+	@Bean
+	HibernatePropertiesCustomizer queryCountingCustomizer() {
+		return properties -> {
+			properties.put(AvailableSettings.STATEMENT_INSPECTOR, new CountingStatementInspector());
+			properties.put(AvailableSettings.STATS_BUILDER, (StatisticsFactory) CountingStatistics::new);
+			properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+		};
+	}
+}
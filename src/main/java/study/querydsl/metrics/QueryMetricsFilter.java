@@ -0,0 +1,50 @@
+package study.querydsl.metrics;
+
+import java.io.IOException;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * 요청마다 실행한 SQL 문 수와 읽은 행 수를 uri 패턴별 분포로 남긴다.
+ * 퍼센타일은 management.metrics.distribution 설정을 따른다.
+ */
+@Component
+public class QueryMetricsFilter extends OncePerRequestFilter {
+
+	private final MeterRegistry meterRegistry;
+	
+	public QueryMetricsFilter(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		QueryStats stats = QueryStats.begin();
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			QueryStats.end();
+			Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+			String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+			summary("member.request.statements", uri, request).record(stats.statements());
+			summary("member.request.rows", uri, request).record(stats.rows());
+		}
+	}
+
+	private DistributionSummary summary(String name, String uri, HttpServletRequest request) {
+		return DistributionSummary.builder(name)
+				.tag("uri", uri)
+				.tag("method", request.getMethod())
+				.register(meterRegistry);
+	}
+}
@@ -0,0 +1,63 @@
+package study.querydsl.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 요청 하나가 실행한 SQL 문 수와 쿼리로 읽은 행 수.
+ * 요청 스레드에 묶고, 다른 스레드로 넘기는 작업은 wrap 으로 감싸서 같은 집계에 더한다.
+ */
+public class QueryStats {
+
+	private static final ThreadLocal<QueryStats> current = new ThreadLocal<>();
+	
+	private final LongAdder statements = new LongAdder();
+	private final LongAdder rows = new LongAdder();
+	
+	static QueryStats begin() {
+		QueryStats stats = new QueryStats();
+		current.set(stats);
+		return stats;
+	}
+	
+	static void end() {
+		current.remove();
+	}
+	
+	static void addStatement() {
+		QueryStats stats = current.get();
+		if(stats != null) {
+			stats.statements.increment();
+		}
+	}
+	
+	static void addRows(long count) {
+		QueryStats stats = current.get();
+		if(stats != null) {
+			stats.rows.add(count);
+		}
+	}
+	
+	public static Runnable wrap(Runnable task) {
+		QueryStats stats = current.get();
+		if(stats == null) {
+			return task;
+		}
+		return () -> {
+			QueryStats previous = current.get();
+			current.set(stats);
+			try {
+				task.run();
+			} finally {
+				current.set(previous);
+			}
+		};
+	}
+	
+	public long statements() {
+		return statements.sum();
+	}
+	
+	public long rows() {
+		return rows.sum();
+	}
+}
@@ -0,0 +1,187 @@
+package study.querydsl.projection;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import com.querydsl.core.types.ExpressionException;
+
+/**
+ * DTO 클래스별 생성자/setter/필드 접근자를 만들어 캐시한다. 접근자를 만드는 비용은 클래스와 프로퍼티마다 한 번이다.
+ */
+final class GeneratedAccessors {
+
+	private static final ClassValue<GeneratedAccessors> accessors = new ClassValue<>() {
+		@Override
+		protected GeneratedAccessors computeValue(Class<?> type) {
+			return new GeneratedAccessors(type);
+		}
+	};
+
+	private final Class<?> type;
+	private final MethodHandles.Lookup lookup;
+	private volatile Supplier<Object> defaultConstructor;
+	private final Map<String, BiConsumer<Object, Object>> setters = new ConcurrentHashMap<>();
+	private final Map<String, BiConsumer<Object, Object>> fields = new ConcurrentHashMap<>();
+	private final Map<List<Class<?>>, MethodHandle> constructors = new ConcurrentHashMap<>();
+
+	private GeneratedAccessors(Class<?> type) {
+		this.type = type;
+		try {
+			this.lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+		} catch (IllegalAccessException e) {
+			throw new ExpressionException("Cannot access " + type.getName(), e);
+		}
+	}
+
+	static GeneratedAccessors of(Class<?> type) {
+		return accessors.get(type);
+	}
+
+	Supplier<Object> defaultConstructor() {
+		Supplier<Object> constructor = defaultConstructor;
+		if(constructor == null) {
+			constructor = generateDefaultConstructor();
+			defaultConstructor = constructor;
+		}
+		return constructor;
+	}
+
+	/**
+	 * 해당 이름의 setter 가 없으면 null 을 돌려준다. (QBean 과 마찬가지로 그 값은 무시된다)
+	 */
+	BiConsumer<Object, Object> setter(String property) {
+		return setters.computeIfAbsent(property, this::generateSetter);
+	}
+
+	BiConsumer<Object, Object> field(String property) {
+		return fields.computeIfAbsent(property, this::generateFieldSetter);
+	}
+
+	/**
+	 * (Object[])Object 형태로 맞춘 생성자 핸들
+	 */
+	MethodHandle constructor(Class<?>[] argTypes) {
+		return constructors.computeIfAbsent(List.of(argTypes), key -> generateConstructor(argTypes));
+	}
+
+	@SuppressWarnings("unchecked")
+	private Supplier<Object> generateDefaultConstructor() {
+		try {
+			MethodHandle handle = lookup.findConstructor(type, MethodType.methodType(void.class));
+			CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+					MethodType.methodType(Supplier.class),
+					MethodType.methodType(Object.class),
+					handle,
+					MethodType.methodType(type));
+			return (Supplier<Object>) site.getTarget().invokeExact();
+		} catch (Throwable e) {
+			throw new ExpressionException("No default constructor in " + type.getName(), e);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private BiConsumer<Object, Object> generateSetter(String property) {
+		Method method = findSetter(property);
+		if(method == null) {
+			return null;
+		}
+		try {
+			Class<?> valueType = ClassUtils.resolvePrimitiveIfNecessary(method.getParameterTypes()[0]);
+			CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+					MethodType.methodType(BiConsumer.class),
+					MethodType.methodType(void.class, Object.class, Object.class),
+					lookup.unreflect(method),
+					MethodType.methodType(void.class, type, valueType));
+			return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+		} catch (Throwable e) {
+			throw new ExpressionException("Cannot generate setter for " + type.getName() + "." + property, e);
+		}
+	}
+
+	private Method findSetter(String property) {
+		String name = "set" + StringUtils.capitalize(property);
+		return Arrays.stream(type.getMethods())
+				.filter(method -> method.getName().equals(name) && method.getParameterCount() == 1)
+				.filter(method -> !Modifier.isStatic(method.getModifiers()))
+				.findFirst()
+				.orElse(null);
+	}
+
+	//필드 쓰기는 LambdaMetafactory 대상이 될 수 없어서 (Object,Object)void 로 맞춘 MethodHandle 을 그대로 쓴다
+	private BiConsumer<Object, Object> generateFieldSetter(String property) {
+		Field field = findField(property);
+		if(field == null) {
+			return null;
+		}
+		try {
+			MethodHandle handle = lookup.unreflectSetter(field)
+					.asType(MethodType.methodType(void.class, Object.class, Object.class));
+			return (bean, value) -> {
+				try {
+					handle.invokeExact(bean, value);
+				} catch (Throwable e) {
+					throw new ExpressionException("Cannot set " + type.getName() + "." + property, e);
+				}
+			};
+		} catch (IllegalAccessException e) {
+			throw new ExpressionException("Cannot access " + type.getName() + "." + property, e);
+		}
+	}
+
+	private Field findField(String property) {
+		for(Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+			try {
+				Field field = current.getDeclaredField(property);
+				if(!Modifier.isStatic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers())) {
+					return field;
+				}
+			} catch (NoSuchFieldException e) {
+				//상위 클래스에서 계속 찾는다
+			}
+		}
+		return null;
+	}
+
+	private MethodHandle generateConstructor(Class<?>[] argTypes) {
+		for(Constructor<?> constructor : type.getDeclaredConstructors()) {
+			if(matches(constructor.getParameterTypes(), argTypes)) {
+				try {
+					return lookup.unreflectConstructor(constructor)
+							.asSpreader(Object[].class, argTypes.length)
+							.asType(MethodType.methodType(Object.class, Object[].class));
+				} catch (IllegalAccessException e) {
+					throw new ExpressionException("Cannot access constructor of " + type.getName(), e);
+				}
+			}
+		}
+		throw new ExpressionException("No constructor in " + type.getName() + " for " + Arrays.toString(argTypes));
+	}
+
+	private boolean matches(Class<?>[] parameterTypes, Class<?>[] argTypes) {
+		if(parameterTypes.length != argTypes.length) {
+			return false;
+		}
+		for(int i = 0; i < parameterTypes.length; i++) {
+			if(!ClassUtils.isAssignable(parameterTypes[i], argTypes[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
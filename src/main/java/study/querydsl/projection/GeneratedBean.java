@@ -0,0 +1,83 @@
+package study.querydsl.projection;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.QBean;
+import com.querydsl.core.types.Visitor;
+
+/**
+ * {@link QBean} 과 같은 바인딩 규칙(경로 이름 또는 as 로 준 별칭)으로 값을 채우는 bean 프로젝션.
+ * null 값은 QBean 과 마찬가지로 건너뛴다.
+ */
+public class GeneratedBean<T> extends FactoryExpressionBase<T> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<Expression<?>> args;
+	private final transient Supplier<Object> constructor;
+	private final transient BiConsumer<Object, Object>[] writers;
+
+	@SuppressWarnings("unchecked")
+	GeneratedBean(Class<? extends T> type, boolean fieldAccess, Expression<?>... exprs) {
+		super(type);
+		Map<String, Expression<?>> bindings = createBindings(exprs);
+		this.args = new ArrayList<>(bindings.values());
+		
+		GeneratedAccessors accessors = GeneratedAccessors.of(type);
+		this.constructor = accessors.defaultConstructor();
+		this.writers = new BiConsumer[args.size()];
+		int i = 0;
+		for (String property : bindings.keySet()) {
+			writers[i++] = fieldAccess ? accessors.field(property) : accessors.setter(property);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T newInstance(Object... values) {
+		Object bean = constructor.get();
+		for(int i = 0; i < values.length; i++) {
+			Object value = values[i];
+			if(value != null && writers[i] != null) {
+				writers[i].accept(bean, value);
+			}
+		}
+		return (T) bean;
+	}
+
+	@Override
+	public List<Expression<?>> getArgs() {
+		return args;
+	}
+
+	@Override
+	public <R, C> R accept(Visitor<R, C> v, C context) {
+		return v.visit(this, context);
+	}
+
+	private static Map<String, Expression<?>> createBindings(Expression<?>... exprs) {
+		Map<String, Expression<?>> bindings = new LinkedHashMap<>();
+		for (Expression<?> expr : exprs) {
+			if(expr instanceof Path<?> path) {
+				bindings.put(path.getMetadata().getName(), expr);
+			} else if(expr instanceof Operation<?> operation 
+					&& operation.getOperator() == Ops.ALIAS 
+					&& operation.getArg(1) instanceof Path<?> alias) {
+				bindings.put(alias.getMetadata().getName(), expr);
+			} else {
+				throw new IllegalArgumentException("Unsupported expression " + expr);
+			}
+		}
+		return bindings;
+	}
+}
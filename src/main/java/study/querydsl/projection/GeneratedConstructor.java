@@ -0,0 +1,51 @@
+package study.querydsl.projection;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionException;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Visitor;
+
+/**
+ * 인자 타입에 맞는 생성자를 MethodHandle 로 한 번 찾아 두고 호출하는 생성자 프로젝션.
+ */
+public class GeneratedConstructor<T> extends FactoryExpressionBase<T> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<Expression<?>> args;
+	private final transient MethodHandle constructor;
+
+	GeneratedConstructor(Class<? extends T> type, Expression<?>... exprs) {
+		super(type);
+		this.args = List.of(exprs);
+		
+		Class<?>[] argTypes = new Class<?>[exprs.length];
+		for(int i = 0; i < exprs.length; i++) {
+			argTypes[i] = exprs[i].getType();
+		}
+		this.constructor = GeneratedAccessors.of(type).constructor(argTypes);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T newInstance(Object... values) {
+		try {
+			return (T) (Object) constructor.invokeExact(values);
+		} catch (Throwable e) {
+			throw new ExpressionException("Cannot create " + getType().getName(), e);
+		}
+	}
+
+	@Override
+	public List<Expression<?>> getArgs() {
+		return args;
+	}
+
+	@Override
+	public <R, C> R accept(Visitor<R, C> v, C context) {
+		return v.visit(this, context);
+	}
+}
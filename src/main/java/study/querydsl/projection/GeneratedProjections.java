@@ -0,0 +1,26 @@
+package study.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Projections;
+
+/**
+ * {@link Projections} 의 bean, fields, constructor 와 같은 모양의 팩토리.
+ * 리플렉션 대신 DTO 클래스마다 한 번 만들어 둔 LambdaMetafactory/MethodHandle 접근자로 값을 채운다.
+ */
+public final class GeneratedProjections {
+
+	private GeneratedProjections() {
+	}
+
+	public static <T> GeneratedBean<T> bean(Class<? extends T> type, Expression<?>... exprs) {
+		return new GeneratedBean<>(type, false, exprs);
+	}
+
+	public static <T> GeneratedBean<T> fields(Class<? extends T> type, Expression<?>... exprs) {
+		return new GeneratedBean<>(type, true, exprs);
+	}
+
+	public static <T> GeneratedConstructor<T> constructor(Class<? extends T> type, Expression<?>... exprs) {
+		return new GeneratedConstructor<>(type, exprs);
+	}
+}
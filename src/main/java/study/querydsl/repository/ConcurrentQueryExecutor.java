@@ -0,0 +1,102 @@
+package study.querydsl.repository;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import study.querydsl.metrics.QueryStats;
+
+/**
+ * 조회 쿼리를 각자의 읽기 전용 트랜잭션(커넥션)으로 동시에 실행한다. 복제본이 있으면 복제본으로 간다.
+ * spring.threads.virtual.enabled 이고 Java 21 이상이면 가상 스레드를 쓴다.
+ * concurrencyLimit 을 넘는 요청은 자리가 날 때까지 기다리므로 커넥션 풀보다 작게 잡는다.
+ * 페이지 하나는 호출 트랜잭션의 커넥션에 더해 두 개를 더 쓸 수 있어서, 동시에 나눠 도는 페이지 수는 maxInFlightPages 로 따로 묶는다.
+ */
+@Component
+public class ConcurrentQueryExecutor {
+
+	private final EntityManagerFactory emf;
+	private final TransactionTemplate readOnlyTransaction;
+	private final SimpleAsyncTaskExecutor executor;
+	private final boolean enabled;
+	private final Semaphore pagePermits;
+	
+	public ConcurrentQueryExecutor(EntityManagerFactory emf, PlatformTransactionManager transactionManager, Environment environment,
+			@Value("${member.search.page.concurrent:false}") boolean enabled,
+			@Value("${member.search.page.concurrency-limit:16}") int concurrencyLimit,
+			@Value("${member.search.page.max-in-flight:4}") int maxInFlightPages) {
+		this.emf = emf;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+		this.enabled = enabled;
+		this.pagePermits = new Semaphore(maxInFlightPages);
+		this.executor = new SimpleAsyncTaskExecutor("member-query-");
+		this.executor.setVirtualThreads(Threading.VIRTUAL.isActive(environment));
+		this.executor.setConcurrencyLimit(concurrencyLimit);
+		this.executor.setTaskDecorator(QueryStats::wrap);
+	}
+
+	/**
+	 * 쓰기 트랜잭션 안에서는 아직 커밋되지 않은 변경이 다른 커넥션에 보이지 않으므로 호출 스레드에서 순서대로 실행한다.
+	 */
+	public boolean isAvailable() {
+		return enabled && !(TransactionSynchronizationManager.isActualTransactionActive()
+				&& !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+	}
+
+	/**
+	 * 자리가 없으면 기다리지 않고 false 를 돌려준다. 호출한 쪽은 자기 커넥션에서 순서대로 실행하면 된다.
+	 */
+	public boolean tryAcquirePage() {
+		return pagePermits.tryAcquire();
+	}
+
+	public void releasePage() {
+		pagePermits.release();
+	}
+
+	public <T> CompletableFuture<T> submit(Function<EntityManager, T> query) {
+		return CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(
+				status -> query.apply(EntityManagerFactoryUtils.getTransactionalEntityManager(emf))), executor);
+	}
+
+	/**
+	 * 다른 EntityManagerFactory(샤드)에서 실행한다. 트랜잭션 없이 읽기 전용 세션으로 읽는다.
+	 */
+	public <T> CompletableFuture<T> submit(EntityManagerFactory target, Function<EntityManager, T> query) {
+		return CompletableFuture.supplyAsync(() -> {
+			EntityManager em = target.createEntityManager();
+			try {
+				em.unwrap(Session.class).setDefaultReadOnly(true);
+				return query.apply(em);
+			} finally {
+				em.close();
+			}
+		}, executor);
+	}
+
+	public <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if(e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package study.querydsl.repository;
+
+/**
+ * searchAfter 에 넘어온 커서를 읽을 수 없거나 다른 정렬로 만든 커서일 때.
+ * 커서는 클라이언트가 보낸 값이므로 메시지에 넣지 않는다.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+	public InvalidCursorException(String message) {
+		super(message);
+	}
+
+	public InvalidCursorException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,136 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.BulkMutationResult;
+import study.querydsl.event.MemberBulkChangedEvent;
+import study.querydsl.shard.MemberShards;
+
+/**
+ * member 테이블 전체에 걸친 벌크 update/delete 를 member.id 구간으로 나눠 구간마다 따로 커밋한다.
+ * 한 구간은 chunkSize 건 이하의 행만 잠그고, 커밋할 때마다 영속성 컨텍스트를 버리고 MemberBulkChangedEvent 를 발행해
+ * 검색 캐시, TeamNameIndex, 스냅샷이 이미 커밋된 구간을 바로 다시 읽게 한다. Member 2차 캐시 영역은 Hibernate 가 벌크 쿼리마다 비운다.
+ * 구간마다 커밋해야 하므로 트랜잭션 안에서는 호출할 수 없고, 기본 DataSource 의 member 만 바꾸므로 샤드가 있으면 쓸 수 없다.
+ */
+@Repository
+public class MemberBulkRepository {
+
+	private static final Logger log = LoggerFactory.getLogger(MemberBulkRepository.class);
+
+	private final JPAQueryFactory queryFactory;
+	private final TransactionTemplate transactionTemplate;
+	private final ApplicationEventPublisher eventPublisher;
+	private final MemberShards shards;
+	private final int chunkSize;
+
+	public MemberBulkRepository(EntityManager em, TransactionTemplate transactionTemplate,
+			ApplicationEventPublisher eventPublisher, MemberShards shards,
+			@Value("${member.bulk-mutation.chunk-size:1000}") int chunkSize) {
+		this.queryFactory = new JPAQueryFactory(em);
+		this.transactionTemplate = transactionTemplate;
+		this.eventPublisher = eventPublisher;
+		this.shards = shards;
+		this.chunkSize = chunkSize;
+	}
+
+	public BulkMutationResult update(Predicate where, Consumer<JPAUpdateClause> assignments) {
+		return update(where, assignments, progress -> {});
+	}
+
+	/**
+	 * assignments 는 구간마다 새 JPAUpdateClause 에 set 만 하면 된다. progress 는 구간이 커밋될 때마다 누적 결과로 불린다.
+	 */
+	public BulkMutationResult update(Predicate where, Consumer<JPAUpdateClause> assignments,
+			Consumer<BulkMutationResult> progress) {
+		return execute("bulk update", (from, to) -> {
+			JPAUpdateClause update = queryFactory.update(member)
+					.where(where, member.id.gt(from), member.id.loe(to));
+			assignments.accept(update);
+			return update.execute();
+		}, progress);
+	}
+
+	public BulkMutationResult delete(Predicate where) {
+		return delete(where, progress -> {});
+	}
+
+	public BulkMutationResult delete(Predicate where, Consumer<BulkMutationResult> progress) {
+		return execute("bulk delete", (from, to) -> queryFactory.delete(member)
+				.where(where, member.id.gt(from), member.id.loe(to))
+				.execute(), progress);
+	}
+
+	private BulkMutationResult execute(String name, RangeMutation mutation, Consumer<BulkMutationResult> progress) {
+		shards.requireUnsharded(name);
+		if(TransactionSynchronizationManager.isActualTransactionActive()) {
+			throw new IllegalStateException(name + " commits per chunk and cannot join an existing transaction");
+		}
+		long start = System.nanoTime();
+		BulkMutationResult result = new BulkMutationResult(0, 0, null, Duration.ZERO);
+		long from = Long.MIN_VALUE;
+		while (true) {
+			long lower = from;
+			Chunk chunk = transactionTemplate.execute(status -> {
+				Long to = upperBound(lower);
+				return to == null ? null : new Chunk(to, mutation.execute(lower, to));
+			});
+			if(chunk == null) {
+				break;
+			}
+			from = chunk.to();
+			result = new BulkMutationResult(result.rows() + chunk.rows(), result.chunks() + 1, chunk.to(),
+					Duration.ofNanos(System.nanoTime() - start));
+			if(chunk.rows() > 0) {
+				eventPublisher.publishEvent(new MemberBulkChangedEvent());
+			}
+			log.info("{}: {} rows in {} chunks, up to member {}", name, result.rows(), result.chunks(), chunk.to());
+			progress.accept(result);
+		}
+		log.info("{} finished: {} rows in {} ms, {} rows/sec",
+				name, result.rows(), result.elapsed().toMillis(), (long) result.rowsPerSecond());
+		return result;
+	}
+
+	//from 다음 chunkSize 번째 id. 남은 행이 그보다 적으면 마지막 id
+	private Long upperBound(long from) {
+		Long to = queryFactory
+				.select(member.id)
+				.from(member)
+				.where(member.id.gt(from))
+				.orderBy(member.id.asc())
+				.offset(chunkSize - 1)
+				.fetchFirst();
+		if(to != null) {
+			return to;
+		}
+		return queryFactory
+				.select(member.id.max())
+				.from(member)
+				.where(member.id.gt(from))
+				.fetchOne();
+	}
+
+	@FunctionalInterface
+	private interface RangeMutation {
+		long execute(long from, long to);
+	}
+
+	private record Chunk(long to, long rows) {
+	}
+}
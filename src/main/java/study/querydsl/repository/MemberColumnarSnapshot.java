@@ -0,0 +1,376 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.event.MemberBulkChangedEvent;
+import study.querydsl.event.MemberChangedEvent;
+import study.querydsl.event.TeamChangedEvent;
+import study.querydsl.shard.MemberShards;
+
+/**
+ * 커밋된 Member/Team 을 열 단위 배열로 들고 있다가 MemberSearchCondition 을 BitSet 스캔으로 거른다.
+ * userName, teamName 은 사전(문자열 -> 코드)으로 바꿔 int 비교만 한다.
+ * 처음 쓸 때 전체를 읽고, 이후에는 Member/Team 변경 이벤트로 행 단위로 고치며 벌크 변경이 있으면 다시 읽는다.
+ * 지운 행과 더 이상 쓰지 않는 사전 값은 살아 있는 것만큼 쌓이면(compactMinRows 이상) 살아 있는 행만 남겨 다시 채운다.
+ * 기본 DataSource 만 읽으므로 샤드가 있으면 쓸 수 없다.
+ */
+@Component
+public class MemberColumnarSnapshot {
+
+	private static final long NO_TEAM = Long.MIN_VALUE;
+	private static final int NO_CODE = -1;
+
+	private final EntityManagerFactory emf;
+	private final MemberShards shards;
+	private final boolean enabled;
+	private final int compactMinRows;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private boolean loaded;
+	private int size;
+	private long[] memberIds = new long[0];
+	private int[] ages = new int[0];
+	private int[] userNames = new int[0];
+	private long[] teamIds = new long[0];
+	private int[] teamNames = new int[0];
+	private final BitSet live = new BitSet();
+	private final Map<Long, Integer> rowOf = new HashMap<>();
+	private final Map<Long, Integer> teamNameOf = new HashMap<>();
+	private Dictionary userNameDictionary = new Dictionary();
+	private Dictionary teamNameDictionary = new Dictionary();
+
+	public MemberColumnarSnapshot(EntityManagerFactory emf, MemberShards shards,
+			@Value("${member.search.snapshot.enabled:false}") boolean enabled,
+			@Value("${member.search.snapshot.compact-min-rows:1024}") int compactMinRows) {
+		this.emf = emf;
+		this.shards = shards;
+		this.enabled = enabled;
+		this.compactMinRows = compactMinRows;
+	}
+
+	//쓰기 트랜잭션 안에서는 커밋 전 변경이 보여야 하므로 DB 로 간다
+	public boolean isAvailable() {
+		return enabled && !(TransactionSynchronizationManager.isActualTransactionActive()
+				&& !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+	}
+
+	public List<MemberTeamDto> search(MemberSearchCondition condition) {
+		shards.requireUnsharded("snapshot search");
+		ensureLoaded();
+		lock.readLock().lock();
+		try {
+			BitSet rows = (BitSet) live.clone();
+			if(StringUtils.hasText(condition.getUserName())) {
+				rows.and(codeEq(userNames, userNameDictionary.codeOf(condition.getUserName())));
+			}
+			if(StringUtils.hasText(condition.getTeamName())) {
+				rows.and(codeEq(teamNames, teamNameDictionary.codeOf(condition.getTeamName())));
+			}
+			if(condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+				rows.and(ageBetween(
+						condition.getAgeGoe() == null ? Integer.MIN_VALUE : condition.getAgeGoe(),
+						condition.getAgeLoe() == null ? Integer.MAX_VALUE : condition.getAgeLoe()));
+			}
+
+			List<MemberTeamDto> result = new ArrayList<>(rows.cardinality());
+			for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+				result.add(toDto(row));
+			}
+			return result;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@EventListener
+	public void onMemberChanged(MemberChangedEvent event) {
+		lock.writeLock().lock();
+		try {
+			if(!loaded) {
+				return;
+			}
+			Integer row = rowOf.get(event.memberId());
+			if(event.after() == null) {
+				if(row != null) {
+					live.clear(row);
+					rowOf.remove(event.memberId());
+					compactIfNeeded();
+				}
+				return;
+			}
+			Long teamId = event.after().getTeamId();
+			if(teamId != null && !teamNameOf.containsKey(teamId)) {
+				//모르는 팀이면 다음 조회 때 전체를 다시 읽는다
+				loaded = false;
+				return;
+			}
+			if(row == null) {
+				row = append(event.memberId());
+			}
+			set(row, event.after().getUserName(), event.after().getAge(), teamId);
+			compactIfNeeded();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@EventListener
+	public void onTeamChanged(TeamChangedEvent event) {
+		lock.writeLock().lock();
+		try {
+			if(!loaded) {
+				return;
+			}
+			if(event.nameAfter() == null && event.nameBefore() != null) {
+				teamNameOf.remove(event.teamId());
+				return;
+			}
+			int code = teamNameDictionary.encode(event.nameAfter());
+			teamNameOf.put(event.teamId(), code);
+			for (int row = 0; row < size; row++) {
+				if(teamIds[row] == event.teamId()) {
+					teamNames[row] = code;
+				}
+			}
+			compactIfNeeded();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@EventListener
+	public void onMemberBulkChanged(MemberBulkChangedEvent event) {
+		lock.writeLock().lock();
+		try {
+			loaded = false;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void ensureLoaded() {
+		lock.readLock().lock();
+		try {
+			if(loaded) {
+				return;
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		lock.writeLock().lock();
+		try {
+			if(!loaded) {
+				load();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void load() {
+		size = 0;
+		live.clear();
+		rowOf.clear();
+		teamNameOf.clear();
+		userNameDictionary.clear();
+		teamNameDictionary.clear();
+
+		EntityManager em = emf.createEntityManager();
+		try {
+			JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+			for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+				teamNameOf.put(row.get(team.id), teamNameDictionary.encode(row.get(team.name)));
+			}
+			List<Tuple> rows = queryFactory
+					.select(member.id, member.userName, member.age, member.team.id)
+					.from(member)
+					.orderBy(member.id.asc())
+					.fetch();
+			grow(rows.size());
+			for (Tuple row : rows) {
+				set(append(row.get(member.id)), row.get(member.userName), row.get(member.age), row.get(member.team.id));
+			}
+		} finally {
+			em.close();
+		}
+		loaded = true;
+	}
+
+	int rowCount() {
+		lock.readLock().lock();
+		try {
+			return size;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	int userNameCount() {
+		lock.readLock().lock();
+		try {
+			return userNameDictionary.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	//지운 행이 절반을 넘거나, 사전 값이 살아 있는 행(팀)의 두 배를 넘으면 다시 채운다
+	private void compactIfNeeded() {
+		int liveRows = live.cardinality();
+		if(size - liveRows >= Math.max(compactMinRows, liveRows)
+				|| userNameDictionary.size() >= Math.max(compactMinRows, liveRows * 2)
+				|| teamNameDictionary.size() >= Math.max(compactMinRows, teamNameOf.size() * 2)) {
+			compact();
+		}
+	}
+
+	private void compact() {
+		Dictionary userNamesAfter = new Dictionary();
+		Dictionary teamNamesAfter = new Dictionary();
+		teamNameOf.replaceAll((teamId, code) -> teamNamesAfter.encode(teamNameDictionary.decode(code)));
+
+		int liveRows = live.cardinality();
+		long[] memberIdsAfter = new long[Math.max(16, liveRows)];
+		int[] agesAfter = new int[memberIdsAfter.length];
+		int[] userNamesColumn = new int[memberIdsAfter.length];
+		long[] teamIdsAfter = new long[memberIdsAfter.length];
+		int[] teamNamesColumn = new int[memberIdsAfter.length];
+		int next = 0;
+		for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+			memberIdsAfter[next] = memberIds[row];
+			agesAfter[next] = ages[row];
+			userNamesColumn[next] = userNamesAfter.encode(userNameDictionary.decode(userNames[row]));
+			teamIdsAfter[next] = teamIds[row];
+			teamNamesColumn[next] = teamNamesAfter.encode(teamNameDictionary.decode(teamNames[row]));
+			rowOf.put(memberIds[row], next);
+			next++;
+		}
+		memberIds = memberIdsAfter;
+		ages = agesAfter;
+		userNames = userNamesColumn;
+		teamIds = teamIdsAfter;
+		teamNames = teamNamesColumn;
+		userNameDictionary = userNamesAfter;
+		teamNameDictionary = teamNamesAfter;
+		size = next;
+		live.clear();
+		live.set(0, next);
+	}
+
+	private int append(long memberId) {
+		if(size == memberIds.length) {
+			grow(Math.max(16, size * 2));
+		}
+		int row = size++;
+		memberIds[row] = memberId;
+		rowOf.put(memberId, row);
+		live.set(row);
+		return row;
+	}
+
+	private void set(int row, String userName, int age, Long teamId) {
+		userNames[row] = userNameDictionary.encode(userName);
+		ages[row] = age;
+		teamIds[row] = teamId == null ? NO_TEAM : teamId;
+		teamNames[row] = teamId == null ? NO_CODE : teamNameOf.get(teamId);
+	}
+
+	private void grow(int capacity) {
+		if(capacity <= memberIds.length) {
+			return;
+		}
+		memberIds = Arrays.copyOf(memberIds, capacity);
+		ages = Arrays.copyOf(ages, capacity);
+		userNames = Arrays.copyOf(userNames, capacity);
+		teamIds = Arrays.copyOf(teamIds, capacity);
+		teamNames = Arrays.copyOf(teamNames, capacity);
+	}
+
+	private BitSet codeEq(int[] column, int code) {
+		BitSet rows = new BitSet(size);
+		if(code == NO_CODE) {
+			return rows;
+		}
+		for (int row = 0; row < size; row++) {
+			if(column[row] == code) {
+				rows.set(row);
+			}
+		}
+		return rows;
+	}
+
+	private BitSet ageBetween(int goe, int loe) {
+		BitSet rows = new BitSet(size);
+		for (int row = 0; row < size; row++) {
+			if(ages[row] >= goe && ages[row] <= loe) {
+				rows.set(row);
+			}
+		}
+		return rows;
+	}
+
+	private MemberTeamDto toDto(int row) {
+		boolean hasTeam = teamIds[row] != NO_TEAM;
+		return new MemberTeamDto(memberIds[row],
+				userNameDictionary.decode(userNames[row]),
+				ages[row],
+				hasTeam ? teamIds[row] : null,
+				hasTeam ? teamNameDictionary.decode(teamNames[row]) : null);
+	}
+
+	//null 은 NO_CODE 로 두어 어떤 조건과도 같지 않게 한다
+	private static final class Dictionary {
+		private final Map<String, Integer> codes = new HashMap<>();
+		private final List<String> values = new ArrayList<>();
+
+		int encode(String value) {
+			if(value == null) {
+				return NO_CODE;
+			}
+			return codes.computeIfAbsent(value, v -> {
+				values.add(v);
+				return values.size() - 1;
+			});
+		}
+
+		int codeOf(String value) {
+			return codes.getOrDefault(value, NO_CODE);
+		}
+
+		String decode(int code) {
+			return code == NO_CODE ? null : values.get(code);
+		}
+
+		int size() {
+			return values.size();
+		}
+
+		void clear() {
+			codes.clear();
+			values.clear();
+		}
+	}
+}
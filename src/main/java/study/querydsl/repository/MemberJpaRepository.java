@@ -3,35 +3,80 @@ package study.querydsl.repository;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.Session;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.ParamExpression;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
+import study.querydsl.shard.MemberShards;
 
+@Timed("member.repository")
 @Repository
 public class MemberJpaRepository {
 	private final EntityManager em;
 	private final JPAQueryFactory queryFactory;
+	private final MemberSearchQueryCache searchQueryCache;
+	private final MemberSearchCache searchCache;
+	private final TeamNameIndex teamNameIndex;
+	private final MemberColumnarSnapshot snapshot;
+	private final MemberSearchCoalescer coalescer;
+	private final MemberShards shards;
+	private final MemberRepository memberRepository;
+	private final int multiGetBatchSize;
 	
-	public MemberJpaRepository(EntityManager em) {
+	public MemberJpaRepository(EntityManager em, MemberSearchQueryCache searchQueryCache, MemberSearchCache searchCache,
+			TeamNameIndex teamNameIndex, MemberColumnarSnapshot snapshot, MemberSearchCoalescer coalescer,
+			MemberShards shards, MemberRepository memberRepository,
+			@Value("${member.multi-get.batch-size:512}") int multiGetBatchSize) {
 		this.em = em;
 		this.queryFactory = new JPAQueryFactory(em);
+		this.searchQueryCache = searchQueryCache;
+		this.searchCache = searchCache;
+		this.teamNameIndex = teamNameIndex;
+		this.snapshot = snapshot;
+		this.coalescer = coalescer;
+		this.shards = shards;
+		this.memberRepository = memberRepository;
+		this.multiGetBatchSize = multiGetBatchSize;
 	}
 	
+	//샤드가 있으면 team 의 샤드에 따로 커밋하므로 호출한 쪽의 트랜잭션에 묶이지 않는다
 	public void save(Member member) {
+		if(shards.isEnabled()) {
+			shards.save(member);
+			return;
+		}
 		em.persist(member);
 	}
 	
@@ -40,6 +85,40 @@ public class MemberJpaRepository {
 		return Optional.ofNullable(findMember);
 	}
 	
+	/**
+	 * ids 순서대로 돌려주고 없는 id 는 뺀다. 영속성 컨텍스트에 이미 있는 엔티티는 조회하지 않는다.
+	 * 나머지는 multiGetBatchSize 개씩 in 조건으로 읽고, in_clause_parameter_padding 으로 파라미터 수가 2의 거듭제곱으로 맞춰져
+	 * 목록 길이가 달라도 실행 계획이 몇 개로 고정된다.
+	 */
+	@Transactional(readOnly = true)
+	public List<Member> findAllByIds(Collection<Long> ids) {
+		shards.requireUnsharded("findAllByIds");
+		SessionImplementor session = em.unwrap(SessionImplementor.class);
+		PersistenceContext persistenceContext = session.getPersistenceContextInternal();
+		EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(Member.class);
+		
+		Map<Long, Member> found = new HashMap<>();
+		List<Long> missing = new ArrayList<>();
+		for (Long id : new LinkedHashSet<>(ids)) {
+			Object managed = persistenceContext.getEntity(session.generateEntityKey(id, persister));
+			if(managed == null) {
+				missing.add(id);
+			} else if(persistenceContext.getEntry(managed).getStatus() != Status.DELETED) {
+				found.put(id, (Member) managed);
+			}
+		}
+		for (int from = 0; from < missing.size(); from += multiGetBatchSize) {
+			List<Long> chunk = missing.subList(from, Math.min(from + multiGetBatchSize, missing.size()));
+			for (Member findMember : queryFactory.selectFrom(member).where(member.id.in(chunk)).fetch()) {
+				found.put(findMember.getId(), findMember);
+			}
+		}
+		return ids.stream()
+				.map(found::get)
+				.filter(Objects::nonNull)
+				.toList();
+	}
+	
 	public List<Member> findAll() {
 		return em.createQuery("select m from Member m", Member.class)
 				.getResultList();
@@ -64,57 +143,69 @@ public class MemberJpaRepository {
 				.fetch();
 	}
 	
+	/**
+	 * 조회 전용 목록 조회. 스냅샷을 남기지 않으므로 반환된 엔티티의 변경은 flush 되지 않는다.
+	 * 읽은 엔티티를 수정할 때는 findAll 을 쓴다.
+	 */
+	@Transactional(readOnly = true)
+	public List<Member> findAllReadOnly() {
+		return queryFactory
+				.selectFrom(member)
+				.setHint(HibernateHints.HINT_READ_ONLY, true)
+				.fetch();
+	}
+	
+	@Transactional(readOnly = true)
+	public List<Member> findReadOnlyByUserName(String userName) {
+		return queryFactory
+				.selectFrom(member)
+				.where(member.userName.eq(userName))
+				.setHint(HibernateHints.HINT_READ_ONLY, true)
+				.fetch();
+	}
+	
+	//조건은 BooleanBuilder 로 쌓되 값은 Param 으로 두어서, 같은 조건 조합이면 직렬화된 JPQL 을 다시 쓴다
+	@Transactional(readOnly = true)
 	public List<MemberTeamDto> searchBybuilder(MemberSearchCondition condition) {
+		shards.requireUnsharded("searchBybuilder");
 		
 		BooleanBuilder builder = new BooleanBuilder();
+		Map<ParamExpression<?>, Object> bindings = new HashMap<>();
 		if(StringUtils.hasText(condition.getUserName())) {
-			builder.and(member.userName.eq(condition.getUserName()));
+			builder.and(member.userName.eq(MemberSearchQueryCache.userNameParam));
+			bindings.put(MemberSearchQueryCache.userNameParam, condition.getUserName());
 		}
 		
 		if(StringUtils.hasText(condition.getTeamName())) {
-			builder.and(team.name.eq(condition.getTeamName()));
+			builder.and(team.name.eq(MemberSearchQueryCache.teamNameParam));
+			bindings.put(MemberSearchQueryCache.teamNameParam, condition.getTeamName());
 		}
 		
 		if(condition.getAgeGoe() != null) {
-			builder.and(member.age.goe(condition.getAgeGoe()));
+			builder.and(member.age.goe(MemberSearchQueryCache.ageGoeParam));
+			bindings.put(MemberSearchQueryCache.ageGoeParam, condition.getAgeGoe());
 		}
 		
 		if(condition.getAgeLoe() != null) {
-			builder.and(member.age.loe(condition.getAgeLoe()));
+			builder.and(member.age.loe(MemberSearchQueryCache.ageLoeParam));
+			bindings.put(MemberSearchQueryCache.ageLoeParam, condition.getAgeLoe());
 		}
 		
-		return queryFactory
-					.select(new QMemberTeamDto(
-							member.id.as("memberId"), 
-							member.userName, 
-							member.age, 
-							team.id.as("teamId"), 
-							team.name.as("teamName") 
-					))
-					.from(member)
-					.leftJoin(member.team, team)
-					.where(builder)
-					.fetch();
+		return searchQueryCache.search(builder.getValue(), bindings);
 	}
 	
+	//샤드가 있으면 member 는 기본 DataSource 에 없으므로 샤드에 나눠 보내는 MemberRepository.search 로 넘긴다
+	@Transactional(readOnly = true)
 	public List<MemberTeamDto> search(MemberSearchCondition condition) {
-		return queryFactory
-				.select(new QMemberTeamDto(
-						member.id.as("memberId"), 
-						member.userName, 
-						member.age, 
-						team.id.as("teamId"), 
-						team.name.as("teamName") 
-				))
-				.from(member)
-				.leftJoin(member.team, team)
-				.where(
-						userNameEq(condition.getUserName()),
-						teamNameEq(condition.getTeamName()),
-						ageGoe(condition.getAgeGoe()),
-						ageLoe(condition.getAgeLoe())
-				)
-				.fetch();
+		if(shards.isEnabled()) {
+			return memberRepository.search(condition);
+		}
+		return coalescer.execute("jpaSearch", condition, null, () -> {
+			if(snapshot.isAvailable()) {
+				return List.copyOf(snapshot.search(condition));
+			}
+			return searchCache.search(condition, () -> List.copyOf(searchQueryCache.search(condition)));
+		});
 	}
 
 	private Predicate userNameEq(String userName) {
@@ -132,4 +223,57 @@ public class MemberJpaRepository {
 	private Predicate ageLoe(Integer ageLoe) {
 		return ageLoe == null ? null : member.age.loe(ageLoe);
 	}
+	
+	/**
+	 * 샤드가 있으면 대상 샤드를 하나씩 차례로 읽어 이어 붙인다. 샤드의 EntityManager 는 그 샤드를 다 읽으면 닫힌다.
+	 * 어느 경우든 순서는 정하지 않는다.
+	 */
+	public Stream<MemberTeamDto> searchStream(MemberSearchCondition condition, int fetchSize) {
+		Long teamId = StringUtils.hasText(condition.getTeamName()) 
+				? teamNameIndex.teamIdOf(condition.getTeamName()).orElse(null) : null;
+		if(shards.isEnabled()) {
+			return shards.shardsFor(teamId).stream()
+					.flatMap(shard -> shardStream(shard, condition, teamId, fetchSize));
+		}
+		return streamQuery(queryFactory, condition, teamId, fetchSize).stream();
+	}
+
+	private Stream<MemberTeamDto> shardStream(EntityManagerFactory shard, MemberSearchCondition condition, Long teamId, 
+			int fetchSize) {
+		EntityManager shardEm = shard.createEntityManager();
+		try {
+			shardEm.unwrap(Session.class).setDefaultReadOnly(true);
+			return streamQuery(new JPAQueryFactory(shardEm), condition, teamId, fetchSize).stream().onClose(shardEm::close);
+		} catch (RuntimeException e) {
+			shardEm.close();
+			throw e;
+		}
+	}
+
+	private JPAQuery<MemberTeamDto> streamQuery(JPAQueryFactory queryFactory, MemberSearchCondition condition, Long teamId, 
+			int fetchSize) {
+		JPAQuery<MemberTeamDto> query = queryFactory
+				.select(new QMemberTeamDto(
+						member.id.as("memberId"), 
+						member.userName, 
+						member.age, 
+						team.id.as("teamId"), 
+						team.name.as("teamName") 
+				))
+				.from(member);
+		if(StringUtils.hasText(condition.getTeamName())) {
+			query.join(member.team, team);
+		} else {
+			query.leftJoin(member.team, team);
+		}
+		return query
+				.where(
+						userNameEq(condition.getUserName()),
+						teamId == null ? teamNameEq(condition.getTeamName()) : member.team.id.eq(teamId),
+						ageGoe(condition.getAgeGoe()),
+						ageLoe(condition.getAgeLoe())
+				)
+				.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+				.setHint(HibernateHints.HINT_READ_ONLY, true);
+	}
 }
@@ -2,10 +2,27 @@ package study.querydsl.repository;
 
 import java.util.List;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.QueryHint;
 import study.querydsl.entity.Member;
 
+/**
+ * ReadOnly 가 붙은 조회는 조회 전용이다. 스냅샷을 남기지 않으므로 반환된 엔티티의 변경은 flush 되지 않는다.
+ */
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
 	List<Member> findByUserName(String userName);
+	
+	@Transactional(readOnly = true)
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+	@Query("select m from Member m")
+	List<Member> findAllReadOnly();
+	
+	@Transactional(readOnly = true)
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+	List<Member> findReadOnlyByUserName(String userName);
 }
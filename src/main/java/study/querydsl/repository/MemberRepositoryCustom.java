@@ -1,14 +1,25 @@
 package study.querydsl.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
+import study.querydsl.dto.MemberCursorResult;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 
 public interface MemberRepositoryCustom {
 	List<MemberTeamDto> search(MemberSearchCondition condition);
 	Page<MemberTeamDto> searchpageComplex(MemberSearchCondition condition, Pageable pageable);
+	MemberCursorResult searchAfter(MemberSearchCondition condition, String cursor, int size);
+	MemberCursorResult searchAfter(MemberSearchCondition condition, Sort sort, String cursor, int size);
+	/**
+	 * memberIds 의 팀을 teamId 로 바꾸고 바뀐 행 수를 돌려준다. teamId 가 null 이면 팀을 뺀다.
+	 * 현재 영속성 컨텍스트에 있던 해당 Member 는 detach 되므로 호출한 쪽은 다시 읽어야 한다.
+	 * 이미 읽어 둔 Team.members 컬렉션은 고쳐지지 않는다.
+	 */
+	long reassignTeam(Collection<Long> memberIds, Long teamId);
 }
@@ -3,48 +3,94 @@ package study.querydsl.repository;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.core.types.dsl.StringExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import study.querydsl.dto.MemberCursorResult;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.MemberBulkChangedEvent;
+import study.querydsl.shard.MemberShards;
 
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+	static final int MAX_PAGE_SIZE = 100;
+
+	private final EntityManager em;
 	private final JPAQueryFactory queryFactory;
+	private final MemberSearchQueryCache searchQueryCache;
+	private final MemberSearchCache searchCache;
+	private final ConcurrentQueryExecutor concurrentQueryExecutor;
+	private final TeamNameIndex teamNameIndex;
+	private final MemberColumnarSnapshot snapshot;
+	private final ApplicationEventPublisher eventPublisher;
+	private final MemberShards shards;
+	private final MemberSearchCoalescer coalescer;
+	private final int reassignChunkSize;
 	
-	public MemberRepositoryImpl(EntityManager em) {
+	public MemberRepositoryImpl(EntityManager em, MemberSearchQueryCache searchQueryCache, MemberSearchCache searchCache,
+			ConcurrentQueryExecutor concurrentQueryExecutor, TeamNameIndex teamNameIndex, MemberColumnarSnapshot snapshot,
+			ApplicationEventPublisher eventPublisher, MemberShards shards, MemberSearchCoalescer coalescer,
+			@Value("${member.bulk-mutation.chunk-size:1000}") int reassignChunkSize) {
+		this.em = em;
 		this.queryFactory = new JPAQueryFactory(em);
+		this.searchQueryCache = searchQueryCache;
+		this.searchCache = searchCache;
+		this.concurrentQueryExecutor = concurrentQueryExecutor;
+		this.teamNameIndex = teamNameIndex;
+		this.snapshot = snapshot;
+		this.eventPublisher = eventPublisher;
+		this.shards = shards;
+		this.coalescer = coalescer;
+		this.reassignChunkSize = reassignChunkSize;
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public List<MemberTeamDto> search(MemberSearchCondition condition) {
-		return queryFactory
-				.select(new QMemberTeamDto(
-						member.id.as("memberId"), 
-						member.userName, 
-						member.age, 
-						team.id.as("teamId"), 
-						team.name.as("teamName") 
-				))
-				.from(member)
-				.leftJoin(member.team, team)
-				.where(
-						userNameEq(condition.getUserName()),
-						teamNameEq(condition.getTeamName()),
-						ageGoe(condition.getAgeGoe()),
-						ageLoe(condition.getAgeLoe())
-				)
-				.fetch();
+		return coalescer.execute("search", condition, null, () -> {
+			if(shards.isEnabled()) {
+				return List.copyOf(shardedSearch(condition));
+			}
+			if(snapshot.isAvailable()) {
+				return List.copyOf(snapshot.search(condition));
+			}
+			return searchCache.search(condition, () -> List.copyOf(searchQueryCache.search(condition)));
+		});
 	}
 
 	private Predicate userNameEq(String userName) {
@@ -55,6 +101,21 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 		return !StringUtils.hasText(teamName)? null : team.name.eq(teamName);
 	}
 
+	//teamName 을 id 로 바꿀 수 있으면 team 을 거치지 않고 member.team_id 로 거른다
+	private Predicate teamFilter(String teamName, Long teamId) {
+		return teamId != null ? member.team.id.eq(teamId) : teamNameEq(teamName);
+	}
+
+	//팀 조건이 있으면 team 이 없는 행은 어차피 빠지므로 inner join 으로 두어 DB 가 team(name) 인덱스부터 읽을 수 있게 한다
+	private <T> JPAQuery<T> joinTeam(JPAQuery<T> query, String teamName) {
+		return StringUtils.hasText(teamName) ? query.join(member.team, team) : query.leftJoin(member.team, team);
+	}
+
+	private Long teamIdOf(MemberSearchCondition condition) {
+		return StringUtils.hasText(condition.getTeamName()) 
+				? teamNameIndex.teamIdOf(condition.getTeamName()).orElse(null) : null;
+	}
+
 	private Predicate ageGoe(Integer ageGoe) {
 		return ageGoe == null ? null : member.age.goe(ageGoe);
 	}
@@ -64,8 +125,57 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 	}
 
 	@Override
+	@Transactional(readOnly = true)
 	public Page<MemberTeamDto> searchpageComplex(MemberSearchCondition condition, Pageable pageable) {
-		List<MemberTeamDto> content = queryFactory
+		Pageable limited = limitPageSize(pageable);
+		return coalescer.execute("searchPage", condition, limited, () -> {
+			if(shards.isEnabled()) {
+				return shardedPage(condition, limited);
+			}
+			return searchCache.searchPage(condition, limited, () -> fetchPage(condition, limited));
+		});
+	}
+
+	//count 는 content 로 전체 개수를 알 수 없을 때(꽉 찬 페이지, 끝을 넘은 페이지)만 실행한다
+	private Page<MemberTeamDto> fetchPage(MemberSearchCondition condition, Pageable pageable) {
+		Long teamId = teamIdOf(condition);
+		if(concurrentQueryExecutor.isAvailable() && concurrentQueryExecutor.tryAcquirePage()) {
+			try {
+				return fetchPageConcurrently(condition, teamId, pageable);
+			} finally {
+				concurrentQueryExecutor.releasePage();
+			}
+		}
+		List<MemberTeamDto> content = contentQuery(queryFactory, condition, teamId, pageable).fetch();
+		return PageableExecutionUtils.getPage(content, pageable, countQuery(queryFactory, condition, teamId)::fetchOne);
+	}
+
+	//content 와 count 를 각자의 커넥션으로 동시에 실행해서 페이지 응답 시간이 두 쿼리의 합이 아니라 큰 쪽이 되게 한다.
+	//count 를 content 결과보다 먼저 띄우므로 첫 페이지나 마지막 페이지처럼 필요 없는 count 도 DB 에서는 돈다
+	private Page<MemberTeamDto> fetchPageConcurrently(MemberSearchCondition condition, Long teamId, Pageable pageable) {
+		CompletableFuture<Long> total = concurrentQueryExecutor.submit(
+				em -> countQuery(new JPAQueryFactory(em), condition, teamId).fetchOne());
+		CompletableFuture<List<MemberTeamDto>> content = concurrentQueryExecutor.submit(
+				em -> contentQuery(new JPAQueryFactory(em), condition, teamId, pageable).fetch());
+		try {
+			return PageableExecutionUtils.getPage(concurrentQueryExecutor.join(content), pageable, 
+					() -> concurrentQueryExecutor.join(total));
+		} finally {
+			//아직 시작하지 않았다면 건너뛴다. 이미 돌고 있는 count 는 멈추지 않는다
+			total.cancel(false);
+		}
+	}
+
+	private JPAQuery<MemberTeamDto> contentQuery(JPAQueryFactory queryFactory, MemberSearchCondition condition, 
+			Long teamId, Pageable pageable) {
+		return searchQuery(queryFactory, condition, teamId)
+				.orderBy(orderSpecifiers(pageable.getSort()))
+				.offset(pageable.getOffset())
+				.limit(pageable.getPageSize());
+	}
+
+	private JPAQuery<MemberTeamDto> searchQuery(JPAQueryFactory queryFactory, MemberSearchCondition condition, Long teamId) {
+		JPAQuery<MemberTeamDto> query = queryFactory
 				.select(new QMemberTeamDto(
 						member.id.as("memberId"), 
 						member.userName, 
@@ -73,29 +183,331 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 						team.id.as("teamId"), 
 						team.name.as("teamName") 
 				))
-				.from(member)
-				.leftJoin(member.team, team)
+				.from(member);
+		return joinTeam(query, condition.getTeamName())
 				.where(
 						userNameEq(condition.getUserName()),
-						teamNameEq(condition.getTeamName()),
+						teamFilter(condition.getTeamName(), teamId),
 						ageGoe(condition.getAgeGoe()),
 						ageLoe(condition.getAgeLoe())
-				)
-				.fetch();
+				);
+	}
+
+	//count 는 team 컬럼이 필요 없으므로 teamName 을 id 로 바꾸지 못했을 때만 join 한다
+	private JPAQuery<Long> countQuery(JPAQueryFactory queryFactory, MemberSearchCondition condition, Long teamId) {
+		JPAQuery<Long> countQuery = queryFactory
+				.select(member.id.count())
+				.from(member);
+		if(teamId == null && StringUtils.hasText(condition.getTeamName())) {
+			countQuery.join(member.team, team);
+		}
+		return countQuery.where(
+				userNameEq(condition.getUserName()),
+				teamFilter(condition.getTeamName(), teamId),
+				ageGoe(condition.getAgeGoe()),
+				ageLoe(condition.getAgeLoe())
+		);
+	}
+
+	//teamName 을 id 로 바꿀 수 있으면 그 팀의 샤드 하나에만, 아니면 모든 샤드에 동시에 보낸다
+	private List<MemberTeamDto> shardedSearch(MemberSearchCondition condition) {
+		Long teamId = teamIdOf(condition);
+		List<CompletableFuture<List<MemberTeamDto>>> results = new ArrayList<>();
+		for (EntityManagerFactory shard : shards.shardsFor(teamId)) {
+			results.add(concurrentQueryExecutor.submit(shard, 
+					em -> searchQuery(new JPAQueryFactory(em), condition, teamId).fetch()));
+		}
+		return merge(results, Comparator.comparing(MemberTeamDto::getMemberId), 0, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * 각 샤드에서 같은 정렬로 offset + size 건까지 읽고 합쳐서 정렬한 뒤 offset 부터 size 건을 자른다.
+	 * 전체 건수는 샤드별 count 의 합이다. 뒤쪽 페이지일수록 샤드마다 읽는 양이 늘어난다.
+	 */
+	private Page<MemberTeamDto> shardedPage(MemberSearchCondition condition, Pageable pageable) {
+		Long teamId = teamIdOf(condition);
+		long limit = pageable.getOffset() + pageable.getPageSize();
+		List<CompletableFuture<List<MemberTeamDto>>> contents = new ArrayList<>();
+		List<CompletableFuture<Long>> totals = new ArrayList<>();
+		for (EntityManagerFactory shard : shards.shardsFor(teamId)) {
+			contents.add(concurrentQueryExecutor.submit(shard, em -> searchQuery(new JPAQueryFactory(em), condition, teamId)
+					.orderBy(orderSpecifiers(pageable.getSort()))
+					.limit(limit)
+					.fetch()));
+			totals.add(concurrentQueryExecutor.submit(shard, 
+					em -> countQuery(new JPAQueryFactory(em), condition, teamId).fetchOne()));
+		}
+		List<MemberTeamDto> content = merge(contents, comparator(pageable.getSort()), 
+				pageable.getOffset(), pageable.getPageSize());
+		long total = 0;
+		for (CompletableFuture<Long> count : totals) {
+			total += concurrentQueryExecutor.join(count);
+		}
+		return new PageImpl<>(content, pageable, total);
+	}
+
+	private <T> List<T> merge(List<CompletableFuture<List<T>>> results, Comparator<T> comparator, long offset, int size) {
+		List<T> merged = new ArrayList<>();
+		for (CompletableFuture<List<T>> result : results) {
+			merged.addAll(concurrentQueryExecutor.join(result));
+		}
+		merged.sort(comparator);
+		int from = (int) Math.min(offset, merged.size());
+		return new ArrayList<>(merged.subList(from, (int) Math.min((long) from + size, merged.size())));
+	}
+
+	//orderSpecifiers 와 같은 순서를 DTO 로 다시 만든다. null 은 H2 처럼 오름차순에서 앞에 온다
+	private Comparator<MemberTeamDto> comparator(Sort sort) {
+		Comparator<MemberTeamDto> comparator = null;
+		boolean orderedById = false;
+		for (Sort.Order order : sort) {
+			Comparator<MemberTeamDto> next = sortKey(order.getProperty());
+			if(next == null) {
+				continue;
+			}
+			next = order.isAscending() ? next : next.reversed();
+			comparator = comparator == null ? next : comparator.thenComparing(next);
+			orderedById |= order.getProperty().equals("memberId");
+		}
+		Comparator<MemberTeamDto> byId = Comparator.comparing(MemberTeamDto::getMemberId);
+		if(comparator == null) {
+			return byId;
+		}
+		return orderedById ? comparator : comparator.thenComparing(byId);
+	}
+
+	private Comparator<MemberTeamDto> sortKey(String property) {
+		switch (property) {
+			case "memberId": return Comparator.comparing(MemberTeamDto::getMemberId);
+			case "userName": return Comparator.comparing(MemberTeamDto::getUserName, Comparator.nullsFirst(Comparator.naturalOrder()));
+			case "age": return Comparator.comparingInt(MemberTeamDto::getAge);
+			case "teamName": return Comparator.comparing(MemberTeamDto::getTeamName, Comparator.nullsFirst(Comparator.naturalOrder()));
+			default: return null;
+		}
+	}
+
+	private Pageable limitPageSize(Pageable pageable) {
+		if(pageable.isUnpaged()) {
+			return PageRequest.of(0, MAX_PAGE_SIZE, pageable.getSort());
+		}
+		if(pageable.getPageSize() <= MAX_PAGE_SIZE) {
+			return pageable;
+		}
+		return PageRequest.of(pageable.getPageNumber(), MAX_PAGE_SIZE, pageable.getSort());
+	}
+
+	//정렬 가능한 프로퍼티만 허용하고, 마지막에 member.id를 붙여 페이지 간 순서를 고정한다
+	private OrderSpecifier<?>[] orderSpecifiers(Sort sort) {
+		List<OrderSpecifier<?>> orders = new ArrayList<>();
+		boolean orderedById = false;
+		for (Sort.Order order : sort) {
+			ComparableExpressionBase<?> path = sortPath(order.getProperty());
+			if(path == null) {
+				continue;
+			}
+			orders.add(order.isAscending() ? path.asc() : path.desc());
+			orderedById |= path == member.id;
+		}
+		if(!orderedById) {
+			orders.add(member.id.asc());
+		}
+		return orders.toArray(OrderSpecifier[]::new);
+	}
+
+	private ComparableExpressionBase<?> sortPath(String property) {
+		switch (property) {
+			case "memberId": return member.id;
+			case "userName": return member.userName;
+			case "age": return member.age;
+			case "teamName": return team.name;
+			default: return null;
+		}
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public MemberCursorResult searchAfter(MemberSearchCondition condition, String cursor, int size) {
+		return searchAfter(condition, Sort.unsorted(), cursor, size);
+	}
+
+	/**
+	 * sort 의 첫 번째 정렬 키(memberId, userName, age, teamName)와 member.id 로 seek 한다. 정렬 키가 없으면 member.id 순서다.
+	 * 커서에는 정렬 키, 방향, 마지막 행의 키 값과 id 가 들어 있어서 다른 정렬로 만든 커서는 InvalidCursorException 이다.
+	 * null 이 될 수 있는 userName, teamName 은 오름차순에서 null 을 앞에, 내림차순에서 뒤에 둔다.
+	 * 샤드는 지원하지 않는다.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public MemberCursorResult searchAfter(MemberSearchCondition condition, Sort sort, String cursor, int size) {
+		shards.requireUnsharded("searchAfter");
+		int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+		Long teamId = teamIdOf(condition);
+		Sort.Order order = keysetOrder(sort);
 		
-		Long total = queryFactory
-				.select(member.count())
-				.from(member)
-				.where(
-						userNameEq(condition.getUserName()),
-						teamNameEq(condition.getTeamName()),
-						ageGoe(condition.getAgeGoe()),
-						ageLoe(condition.getAgeLoe())
-				)
-				.fetchOne();
+		List<MemberTeamDto> content = searchQuery(queryFactory, condition, teamId)
+				.where(seek(order, decodeCursor(cursor, order)))
+				.orderBy(keysetOrderSpecifiers(order))
+				.limit(limit + 1)
+				.fetch();
 		
-		return new PageImpl<>(content, pageable, total);
-		//return new PageImpl<>(content, pageable, () -> countQuery.fetchOne);
+		if(content.size() <= limit) {
+			return new MemberCursorResult(content, null);
+		}
+		List<MemberTeamDto> page = new ArrayList<>(content.subList(0, limit));
+		return new MemberCursorResult(page, encodeCursor(order, page.get(limit - 1)));
+	}
+
+	private Sort.Order keysetOrder(Sort sort) {
+		for (Sort.Order order : sort) {
+			if(sortPath(order.getProperty()) != null) {
+				return order;
+			}
+		}
+		return Sort.Order.asc("memberId");
+	}
+
+	private OrderSpecifier<?>[] keysetOrderSpecifiers(Sort.Order order) {
+		boolean asc = order.isAscending();
+		switch (order.getProperty()) {
+			case "memberId": 
+				return new OrderSpecifier<?>[] {asc ? member.id.asc() : member.id.desc()};
+			case "age": 
+				return new OrderSpecifier<?>[] {asc ? member.age.asc() : member.age.desc(), member.id.asc()};
+			default:
+				StringExpression path = stringKey(order.getProperty());
+				return new OrderSpecifier<?>[] {
+						asc ? path.asc().nullsFirst() : path.desc().nullsLast(), 
+						member.id.asc()};
+		}
+	}
+
+	//정렬 키가 커서 값보다 뒤이거나, 같으면 id 가 뒤인 행
+	private Predicate seek(Sort.Order order, Cursor cursor) {
+		if(cursor == null) {
+			return null;
+		}
+		boolean asc = order.isAscending();
+		BooleanExpression idAfter = member.id.gt(cursor.lastId());
+		switch (order.getProperty()) {
+			case "memberId": 
+				return asc ? idAfter : member.id.lt(cursor.lastId());
+			case "age":
+				int age = Integer.parseInt(cursor.value());
+				return (asc ? member.age.gt(age) : member.age.lt(age))
+						.or(member.age.eq(age).and(idAfter));
+			default:
+				StringExpression path = stringKey(order.getProperty());
+				if(cursor.value() == null) {
+					BooleanExpression nullsAfter = path.isNull().and(idAfter);
+					return asc ? nullsAfter.or(path.isNotNull()) : nullsAfter;
+				}
+				BooleanExpression after = (asc ? path.gt(cursor.value()) : path.lt(cursor.value()))
+						.or(path.eq(cursor.value()).and(idAfter));
+				return asc ? after : after.or(path.isNull());
+		}
+	}
+
+	private StringExpression stringKey(String property) {
+		return property.equals("userName") ? member.userName : team.name;
+	}
+
+	private String keyValue(String property, MemberTeamDto dto) {
+		switch (property) {
+			case "memberId": return null;
+			case "age": return String.valueOf(dto.getAge());
+			case "userName": return dto.getUserName();
+			default: return dto.getTeamName();
+		}
+	}
+
+	//property,ASC|DESC,id[,value] 를 base64url 로 감싼다. value 가 null 이면 마지막 칸이 없다
+	private String encodeCursor(Sort.Order order, MemberTeamDto last) {
+		String value = keyValue(order.getProperty(), last);
+		String raw = order.getProperty() + "," + order.getDirection() + "," + last.getMemberId()
+				+ (value == null ? "" : "," + value);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private Cursor decodeCursor(String cursor, Sort.Order order) {
+		if(!StringUtils.hasText(cursor)) {
+			return null;
+		}
+		String[] parts = new String(decodeBase64(cursor), StandardCharsets.UTF_8).split(",", 4);
+		if(parts.length < 3) {
+			throw new InvalidCursorException("Malformed cursor");
+		}
+		if(!parts[0].equals(order.getProperty()) || !parts[1].equals(order.getDirection().name())) {
+			throw new InvalidCursorException("Cursor was issued for a different sort");
+		}
+		String value = parts.length == 4 ? parts[3] : null;
+		try {
+			long lastId = Long.parseLong(parts[2]);
+			if(order.getProperty().equals("age")) {
+				Integer.parseInt(String.valueOf(value));
+			}
+			return new Cursor(lastId, value);
+		} catch (NumberFormatException e) {
+			throw new InvalidCursorException("Malformed cursor", e);
+		}
+	}
+
+	private byte[] decodeBase64(String cursor) {
+		try {
+			return Base64.getUrlDecoder().decode(cursor);
+		} catch (IllegalArgumentException e) {
+			throw new InvalidCursorException("Malformed cursor", e);
+		}
+	}
+
+	private record Cursor(long lastId, String value) {
+	}
+
+	//옮긴 Member 중 이미 읽어 둔 것만 떼어 내서 다음 조회 때 바뀐 team 을 읽게 한다. 다른 엔티티는 그대로 둔다
+	private void detachManaged(List<Long> memberIds) {
+		SessionImplementor session = em.unwrap(SessionImplementor.class);
+		PersistenceContext persistenceContext = session.getPersistenceContextInternal();
+		EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(Member.class);
+		for (Long memberId : memberIds) {
+			Object managed = persistenceContext.getEntity(session.generateEntityKey(memberId, persister));
+			if(managed != null) {
+				em.detach(managed);
+			}
+		}
+	}
+
+	/**
+	 * memberIds 의 팀을 member.bulk-mutation.chunk-size 개씩 in 조건 update 로 바꾼다. Team.members 를 읽지 않으므로 비용은 옮기는 회원 수에만 비례한다.
+	 * 벌크 update 는 영속성 컨텍스트를 거치지 않으므로 먼저 flush 하고, 끝나면 옮긴 Member 만 detach 한다.
+	 * 샤드는 지원하지 않는다. 팀이 바뀌면 member 가 다른 샤드로 옮겨 가야 하기 때문이다.
+	 */
+	@Override
+	@Transactional
+	public long reassignTeam(Collection<Long> memberIds, Long teamId) {
+		shards.requireUnsharded("reassignTeam");
+		if(memberIds.isEmpty()) {
+			return 0;
+		}
+		em.flush();
+		Team target = teamId == null ? null : em.getReference(Team.class, teamId);
+		List<Long> ids = List.copyOf(memberIds);
+		long count = 0;
+		for (int from = 0; from < ids.size(); from += reassignChunkSize) {
+			count += queryFactory
+					.update(member)
+					.set(member.team, target)
+					.where(member.id.in(ids.subList(from, Math.min(from + reassignChunkSize, ids.size()))))
+					.execute();
+		}
+		detachManaged(ids);
+
+		//엔티티 이벤트를 거치지 않으므로 커밋된 뒤 캐시들이 다시 읽도록 알린다
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				eventPublisher.publishEvent(new MemberBulkChangedEvent());
+			}
+		});
+		return count;
 	}
 
 }
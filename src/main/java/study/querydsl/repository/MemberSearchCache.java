@@ -0,0 +1,159 @@
+package study.querydsl.repository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import study.querydsl.datasource.ReplicaProperties;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.event.MemberBulkChangedEvent;
+import study.querydsl.event.MemberChangedEvent;
+import study.querydsl.event.TeamChangedEvent;
+
+/**
+ * search / searchpageComplex 결과 캐시.
+ * 커밋된 Member 변경은 그 변경 전후 상태와 조건이 맞을 수 있는 항목만 지우고,
+ * Team 변경이나 벌크 변경은 어떤 결과에 영향을 줬는지 알 수 없으므로 전부 비운다.
+ * 이벤트마다 generation 을 올리고, 읽는 동안 generation 이 바뀐 결과는 변경 전 데이터일 수 있으므로 저장하지 않는다.
+ * 복제본이 있으면 읽기 전용 조회는 max-lag 만큼 늦은 복제본에서 읽을 수 있으므로, 마지막 변경 이벤트 뒤 max-lag 안에 시작한 조회도 저장하지 않는다.
+ */
+@Component
+public class MemberSearchCache {
+
+	private final Cache<SearchKey, Object> cache;
+	private final AtomicLong generation = new AtomicLong();
+	private final boolean enabled;
+	private final long replicaLagNanos;
+	private volatile long invalidatedAt;
+	
+	public MemberSearchCache(MeterRegistry meterRegistry,
+			@Value("${member.search.cache.enabled:true}") boolean enabled,
+			@Value("${member.search.cache.maximum-size:10000}") long maximumSize,
+			@Value("${member.search.cache.ttl:30s}") Duration ttl,
+			ReplicaProperties replicaProperties) {
+		this.enabled = enabled;
+		this.replicaLagNanos = replicaProperties.getReplicas().isEmpty() ? 0 : replicaProperties.getMaxLag().toNanos();
+		this.invalidatedAt = System.nanoTime() - replicaLagNanos;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "memberSearch");
+		Gauge.builder("member.search.cache.hit.ratio", cache, c -> c.stats().hitRate())
+				.register(meterRegistry);
+	}
+
+	@SuppressWarnings("unchecked")
+	public List<MemberTeamDto> search(MemberSearchCondition condition, Supplier<List<MemberTeamDto>> loader) {
+		if(!cacheable()) {
+			return loader.get();
+		}
+		return (List<MemberTeamDto>) load(SearchKey.of(condition, null), () -> List.copyOf(loader.get()));
+	}
+
+	@SuppressWarnings("unchecked")
+	public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, 
+			Supplier<Page<MemberTeamDto>> loader) {
+		if(!cacheable()) {
+			return loader.get();
+		}
+		return (Page<MemberTeamDto>) load(SearchKey.of(condition, pageable), loader);
+	}
+
+	private Object load(SearchKey key, Supplier<?> loader) {
+		Object cached = cache.getIfPresent(key);
+		if(cached != null) {
+			return cached;
+		}
+		long loadedAt = generation.get();
+		boolean replicaMayLag = System.nanoTime() - invalidatedAt < replicaLagNanos;
+		Object value = loader.get();
+		if(!replicaMayLag && generation.get() == loadedAt) {
+			cache.put(key, value);
+			//검사와 put 사이에 이벤트가 지나갔으면 그 이벤트의 삭제보다 put 이 늦었을 수 있다
+			if(generation.get() != loadedAt) {
+				cache.asMap().remove(key, value);
+			}
+		}
+		return value;
+	}
+
+	public void invalidateAll() {
+		invalidated();
+		cache.invalidateAll();
+	}
+
+	@EventListener
+	public void onMemberChanged(MemberChangedEvent event) {
+		invalidated();
+		cache.asMap().keySet().removeIf(key -> key.mayMatch(event.before()) || key.mayMatch(event.after()));
+	}
+
+	@EventListener
+	public void onTeamChanged(TeamChangedEvent event) {
+		invalidateAll();
+	}
+
+	@EventListener
+	public void onMemberBulkChanged(MemberBulkChangedEvent event) {
+		invalidateAll();
+	}
+
+	private void invalidated() {
+		invalidatedAt = System.nanoTime();
+		generation.incrementAndGet();
+	}
+
+	//쓰기 트랜잭션 안에서는 아직 커밋되지 않은 변경이 결과에 섞일 수 있으므로 캐시를 거치지 않는다
+	private boolean cacheable() {
+		return enabled && !(TransactionSynchronizationManager.isActualTransactionActive() 
+				&& !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+	}
+
+	record SearchKey(String userName, String teamName, Integer ageGoe, Integer ageLoe, Pageable pageable) {
+
+		static SearchKey of(MemberSearchCondition condition, Pageable pageable) {
+			return new SearchKey(
+					StringUtils.hasText(condition.getUserName()) ? condition.getUserName() : null,
+					StringUtils.hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+					condition.getAgeGoe(),
+					condition.getAgeLoe(),
+					pageable);
+		}
+
+		//teamName 을 모르는 상태(team 프록시 미초기화)라면 일치할 수 있다고 본다
+		boolean mayMatch(MemberTeamDto state) {
+			if(state == null) {
+				return false;
+			}
+			if(userName != null && !userName.equals(state.getUserName())) {
+				return false;
+			}
+			if(teamName != null && (state.getTeamId() == null 
+					|| (state.getTeamName() != null && !teamName.equals(state.getTeamName())))) {
+				return false;
+			}
+			if(ageGoe != null && state.getAge() < ageGoe) {
+				return false;
+			}
+			return ageLoe == null || state.getAge() <= ageLoe;
+		}
+	}
+}
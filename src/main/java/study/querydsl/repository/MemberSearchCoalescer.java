@@ -0,0 +1,112 @@
+package study.querydsl.repository;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.event.MemberBulkChangedEvent;
+import study.querydsl.event.MemberChangedEvent;
+import study.querydsl.event.TeamChangedEvent;
+import study.querydsl.repository.MemberSearchCache.SearchKey;
+
+/**
+ * 같은 조건(MemberSearchCache 와 같은 정규화)과 Pageable 로 동시에 들어온 검색을 한 번만 실행하고 결과를 나눠 준다.
+ * 캐시와 달리 실행 중인 동안만 묶고, 끝나면 바로 잊는다.
+ * 커밋된 변경이 있으면 실행 중인 항목을 잊어서, 그 뒤에 들어온 요청이 변경 전에 시작된 실행에 붙지 않게 한다.
+ */
+@Component
+public class MemberSearchCoalescer {
+
+	private final ConcurrentMap<FlightKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+	private final boolean enabled;
+	private final Counter executed;
+	private final Counter coalesced;
+
+	public MemberSearchCoalescer(MeterRegistry meterRegistry,
+			@Value("${member.search.coalescing.enabled:true}") boolean enabled) {
+		this.enabled = enabled;
+		this.executed = meterRegistry.counter("member.search.coalescing", "result", "executed");
+		this.coalesced = meterRegistry.counter("member.search.coalescing", "result", "coalesced");
+		Gauge.builder("member.search.coalescing.in.flight", inFlight, ConcurrentMap::size)
+				.register(meterRegistry);
+	}
+
+	/**
+	 * operation 은 결과 모양이 다른 검색(search, searchPage 등)을 구분한다.
+	 * 결과는 여러 요청이 함께 쓰므로 loader 는 바꿀 수 없는 값을 돌려줘야 한다.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T execute(String operation, MemberSearchCondition condition, Pageable pageable, Supplier<T> loader) {
+		if(!coalescable()) {
+			return loader.get();
+		}
+		FlightKey key = new FlightKey(operation, SearchKey.of(condition, pageable));
+		CompletableFuture<Object> flight = new CompletableFuture<>();
+		CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+		if(running != null) {
+			coalesced.increment();
+			return (T) join(running);
+		}
+		executed.increment();
+		try {
+			T result = loader.get();
+			flight.complete(result);
+			return result;
+		} catch (RuntimeException | Error e) {
+			flight.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, flight);
+		}
+	}
+
+	@EventListener
+	public void onMemberChanged(MemberChangedEvent event) {
+		inFlight.clear();
+	}
+
+	@EventListener
+	public void onTeamChanged(TeamChangedEvent event) {
+		inFlight.clear();
+	}
+
+	@EventListener
+	public void onMemberBulkChanged(MemberBulkChangedEvent event) {
+		inFlight.clear();
+	}
+
+	private Object join(CompletableFuture<Object> running) {
+		try {
+			return running.join();
+		} catch (CompletionException e) {
+			if(e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			if(e.getCause() instanceof Error cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	//쓰기 트랜잭션 안에서는 커밋 전 변경이 보여야 하므로 다른 요청과 묶지 않는다
+	private boolean coalescable() {
+		return enabled && !(TransactionSynchronizationManager.isActualTransactionActive()
+				&& !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+	}
+
+	private record FlightKey(String operation, SearchKey searchKey) {
+	}
+}
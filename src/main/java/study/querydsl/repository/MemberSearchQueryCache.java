@@ -0,0 +1,192 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+/**
+ * MemberSearchCondition 의 조건 조합(userName, teamName 또는 teamId, ageGoe, ageLoe 유무)별로
+ * 직렬화된 JPQL 을 한 번만 만들어 두고, 이후에는 파라미터 바인딩만 한다.
+ * teamName 은 TeamNameIndex 로 id 를 찾을 수 있으면 member.team_id 조건으로 바꾼다.
+ * 호출하는 쪽이 Param 으로 만든 where 조건(BooleanBuilder 등)도 같은 조건이면 직렬화된 JPQL 을 다시 쓴다.
+ */
+@Component
+public class MemberSearchQueryCache {
+
+	private static final int USER_NAME = 1;
+	private static final int TEAM_NAME = 1 << 1;
+	private static final int AGE_GOE = 1 << 2;
+	private static final int AGE_LOE = 1 << 3;
+	private static final int TEAM_ID = 1 << 4;
+	private static final int SHAPES = 1 << 5;
+	//값을 Param 대신 상수로 넣은 where 가 들어와도 맵이 끝없이 커지지 않게 한다
+	private static final int MAX_PREDICATES = 64;
+
+	static final Param<String> userNameParam = new Param<>(String.class, "userName");
+	static final Param<String> teamNameParam = new Param<>(String.class, "teamName");
+	static final Param<Long> teamIdParam = new Param<>(Long.class, "teamId");
+	static final Param<Integer> ageGoeParam = new Param<>(Integer.class, "ageGoe");
+	static final Param<Integer> ageLoeParam = new Param<>(Integer.class, "ageLoe");
+
+	private static final QMemberTeamDto projection = new QMemberTeamDto(
+			member.id.as("memberId"), 
+			member.userName, 
+			member.age, 
+			team.id.as("teamId"), 
+			team.name.as("teamName") 
+	);
+
+	private final EntityManager em;
+	private final TeamNameIndex teamNameIndex;
+	private final AtomicReferenceArray<CompiledQuery> compiledQueries = new AtomicReferenceArray<>(SHAPES);
+	private final ConcurrentMap<PredicateKey, CompiledQuery> compiledPredicates = new ConcurrentHashMap<>();
+	private final Counter hits;
+	private final Counter misses;
+	
+	public MemberSearchQueryCache(EntityManager em, TeamNameIndex teamNameIndex, MeterRegistry meterRegistry) {
+		this.em = em;
+		this.teamNameIndex = teamNameIndex;
+		this.hits = meterRegistry.counter("member.search.compiled", "result", "hit");
+		this.misses = meterRegistry.counter("member.search.compiled", "result", "miss");
+	}
+
+	public List<MemberTeamDto> search(MemberSearchCondition condition) {
+		Long teamId = StringUtils.hasText(condition.getTeamName()) 
+				? teamNameIndex.teamIdOf(condition.getTeamName()).orElse(null) : null;
+		return execute(compiledQuery(shapeOf(condition, teamId)), bindings(condition, teamId));
+	}
+
+	/**
+	 * member left join team 에 where 를 붙인 검색. where 의 값은 Param 으로 두고 bindings 로 넘겨야 조건 모양이 같을 때 JPQL 을 다시 쓴다.
+	 */
+	public List<MemberTeamDto> search(Predicate where, Map<ParamExpression<?>, Object> bindings) {
+		PredicateKey key = new PredicateKey(where);
+		CompiledQuery compiledQuery = compiledPredicates.get(key);
+		if(compiledQuery != null) {
+			hits.increment();
+		} else {
+			misses.increment();
+			compiledQuery = serialize(new JPAQuery<MemberTeamDto>(em)
+					.select(projection)
+					.from(member)
+					.leftJoin(member.team, team)
+					.where(where));
+			if(compiledPredicates.size() < MAX_PREDICATES) {
+				compiledPredicates.putIfAbsent(key, compiledQuery);
+			}
+		}
+		return execute(compiledQuery, bindings);
+	}
+
+	private List<MemberTeamDto> execute(CompiledQuery compiledQuery, Map<ParamExpression<?>, Object> bindings) {
+		Query query = em.createQuery(compiledQuery.jpql());
+		JPAUtil.setConstants(query, compiledQuery.constants(), bindings);
+		
+		List<?> rows = query.getResultList();
+		List<MemberTeamDto> result = new ArrayList<>(rows.size());
+		for (Object row : rows) {
+			result.add(projection.newInstance((Object[]) row));
+		}
+		return result;
+	}
+
+	private CompiledQuery compiledQuery(int shape) {
+		CompiledQuery compiledQuery = compiledQueries.get(shape);
+		if(compiledQuery != null) {
+			hits.increment();
+			return compiledQuery;
+		}
+		misses.increment();
+		compiledQuery = compile(shape);
+		compiledQueries.compareAndSet(shape, null, compiledQuery);
+		return compiledQuery;
+	}
+
+	private CompiledQuery compile(int shape) {
+		JPAQuery<MemberTeamDto> query = new JPAQuery<>(em)
+				.select(projection)
+				.from(member);
+		//팀 조건이 있으면 team 이 없는 행은 어차피 빠지므로 inner join 으로 두어 DB 가 team(name) 인덱스부터 읽을 수 있게 한다
+		if((shape & (TEAM_NAME | TEAM_ID)) == 0) {
+			query.leftJoin(member.team, team);
+		} else {
+			query.join(member.team, team);
+		}
+		query.where(
+				(shape & USER_NAME) == 0 ? null : member.userName.eq(userNameParam),
+				(shape & TEAM_NAME) == 0 ? null : team.name.eq(teamNameParam),
+				(shape & TEAM_ID) == 0 ? null : member.team.id.eq(teamIdParam),
+				(shape & AGE_GOE) == 0 ? null : member.age.goe(ageGoeParam),
+				(shape & AGE_LOE) == 0 ? null : member.age.loe(ageLoeParam)
+		);
+		return serialize(query);
+	}
+
+	private CompiledQuery serialize(JPAQuery<MemberTeamDto> query) {
+		JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+		serializer.serialize(query.getMetadata(), false, null);
+		return new CompiledQuery(serializer.toString(), List.copyOf(serializer.getConstants()));
+	}
+
+	private int shapeOf(MemberSearchCondition condition, Long teamId) {
+		int shape = 0;
+		if(StringUtils.hasText(condition.getUserName())) {
+			shape |= USER_NAME;
+		}
+		if(teamId != null) {
+			shape |= TEAM_ID;
+		} else if(StringUtils.hasText(condition.getTeamName())) {
+			shape |= TEAM_NAME;
+		}
+		if(condition.getAgeGoe() != null) {
+			shape |= AGE_GOE;
+		}
+		if(condition.getAgeLoe() != null) {
+			shape |= AGE_LOE;
+		}
+		return shape;
+	}
+
+	private Map<ParamExpression<?>, Object> bindings(MemberSearchCondition condition, Long teamId) {
+		Map<ParamExpression<?>, Object> bindings = new HashMap<>();
+		bindings.put(userNameParam, condition.getUserName());
+		bindings.put(teamNameParam, condition.getTeamName());
+		bindings.put(teamIdParam, teamId);
+		bindings.put(ageGoeParam, condition.getAgeGoe());
+		bindings.put(ageLoeParam, condition.getAgeLoe());
+		return bindings;
+	}
+
+	private record CompiledQuery(String jpql, List<Object> constants) {
+	}
+
+	//조건이 없으면 where 가 null 이다
+	private record PredicateKey(Predicate where) {
+	}
+}
@@ -0,0 +1,108 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QTeam.team;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import study.querydsl.event.MemberBulkChangedEvent;
+import study.querydsl.event.TeamChangedEvent;
+
+/**
+ * 커밋된 Team 의 이름 -> id 맵. teamName 조건을 member.team_id 조건으로 바꾸는 데 쓴다.
+ * 처음 쓸 때 전체를 읽고, 이후에는 TeamChangedEvent 로 고치며 벌크 변경이 있으면 다시 읽는다.
+ */
+@Component
+public class TeamNameIndex {
+
+	private final EntityManagerFactory emf;
+	private volatile Map<String, List<Long>> ids;
+	
+	public TeamNameIndex(EntityManagerFactory emf) {
+		this.emf = emf;
+	}
+
+	/**
+	 * 이름이 한 팀에만 맞으면 그 id. 없는 이름, 중복된 이름이거나
+	 * 커밋 전 변경이 보여야 하는 쓰기 트랜잭션 안이면 비어 있고, 호출하는 쪽은 team.name 조건을 그대로 쓴다.
+	 */
+	public Optional<Long> teamIdOf(String teamName) {
+		if(TransactionSynchronizationManager.isActualTransactionActive()
+				&& !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			return Optional.empty();
+		}
+		List<Long> teamIds = ids().get(teamName);
+		return teamIds == null || teamIds.size() != 1 ? Optional.empty() : Optional.of(teamIds.get(0));
+	}
+
+	@EventListener
+	public synchronized void onTeamChanged(TeamChangedEvent event) {
+		Map<String, List<Long>> current = ids;
+		if(current == null) {
+			return;
+		}
+		Map<String, List<Long>> next = new HashMap<>(current);
+		if(event.nameBefore() != null) {
+			List<Long> teamIds = new ArrayList<>(next.getOrDefault(event.nameBefore(), List.of()));
+			teamIds.remove(event.teamId());
+			if(teamIds.isEmpty()) {
+				next.remove(event.nameBefore());
+			} else {
+				next.put(event.nameBefore(), List.copyOf(teamIds));
+			}
+		}
+		if(event.nameAfter() != null) {
+			List<Long> teamIds = new ArrayList<>(next.getOrDefault(event.nameAfter(), List.of()));
+			if(!teamIds.contains(event.teamId())) {
+				teamIds.add(event.teamId());
+			}
+			next.put(event.nameAfter(), List.copyOf(teamIds));
+		}
+		ids = Map.copyOf(next);
+	}
+
+	@EventListener
+	public synchronized void onBulkChanged(MemberBulkChangedEvent event) {
+		ids = null;
+	}
+
+	private Map<String, List<Long>> ids() {
+		Map<String, List<Long>> current = ids;
+		return current != null ? current : load();
+	}
+
+	private synchronized Map<String, List<Long>> load() {
+		if(ids != null) {
+			return ids;
+		}
+		EntityManager em = emf.createEntityManager();
+		try {
+			Map<String, List<Long>> loaded = new HashMap<>();
+			List<Tuple> rows = new JPAQueryFactory(em)
+					.select(team.id, team.name)
+					.from(team)
+					.where(team.name.isNotNull())
+					.fetch();
+			for (Tuple row : rows) {
+				loaded.computeIfAbsent(row.get(team.name), name -> new ArrayList<>()).add(row.get(team.id));
+			}
+			loaded.replaceAll((name, teamIds) -> List.copyOf(teamIds));
+			ids = Map.copyOf(loaded);
+			return ids;
+		} finally {
+			em.close();
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package study.querydsl.repository;
+
+import java.util.Optional;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import jakarta.persistence.QueryHint;
+import study.querydsl.entity.Team;
+
+public interface TeamRepository extends JpaRepository<Team, Long>, TeamRepositoryCustom {
+	//결과(id)는 쿼리 캐시에, Team 은 2차 캐시에서 꺼낸다. team 테이블이 바뀌면 쿼리 캐시가 무효화된다
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+	Optional<Team> findByName(String name);
+}
@@ -0,0 +1,10 @@
+package study.querydsl.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import study.querydsl.dto.TeamRosterDto;
+
+public interface TeamRepositoryCustom {
+	Page<TeamRosterDto> findRosters(Pageable pageable);
+}
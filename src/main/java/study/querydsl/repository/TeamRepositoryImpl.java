@@ -0,0 +1,121 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QTeam.team;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.TeamRosterDto;
+import study.querydsl.shard.MemberShards;
+
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+
+	static final int MAX_MEMBERS_PER_TEAM = 100;
+
+	//팀마다 member.id 순으로 번호를 매겨 앞의 MAX_MEMBERS_PER_TEAM 명만 남기고, 전체 회원 수는 같은 창에서 센다
+	private static final String ROSTER_MEMBERS = """
+			select r.teamId, r.userName, r.age, r.memberCount
+			from (
+				select m.team.id as teamId, m.id as id, m.userName as userName, m.age as age,
+					row_number() over (partition by m.team.id order by m.id) as position,
+					count(*) over (partition by m.team.id) as memberCount
+				from Member m
+				where m.team.id in :teamIds
+			) r
+			where r.position <= :limit
+			order by r.teamId, r.id
+			""";
+
+	private final EntityManager em;
+	private final JPAQueryFactory queryFactory;
+	private final MemberShards shards;
+	
+	public TeamRepositoryImpl(EntityManager em, MemberShards shards) {
+		this.em = em;
+		this.queryFactory = new JPAQueryFactory(em);
+		this.shards = shards;
+	}
+
+	//팀을 team.id 순으로 한 페이지 읽고, 그 팀들의 회원은 in 조회 한 번으로 읽어서 팀 단위로 묶는다. 팀 수가 늘어도 쿼리는 둘이다
+	//조인 결과에 offset/limit 을 걸면 팀의 회원이 페이지 경계에서 잘리므로 페이지는 팀으로 나눈다.
+	//회원 수가 큰 팀이 있어도 페이지 하나가 읽는 행은 팀 수 * MAX_MEMBERS_PER_TEAM 을 넘지 않는다
+	//샤드가 있으면 팀은 기본 DataSource 에서, 회원은 팀의 샤드마다 한 번씩 읽는다
+	@Override
+	public Page<TeamRosterDto> findRosters(Pageable pageable) {
+		Pageable limited = limitPageSize(pageable);
+		List<Tuple> teams = queryFactory
+				.select(team.id, team.name)
+				.from(team)
+				.orderBy(team.id.asc())
+				.offset(limited.getOffset())
+				.limit(limited.getPageSize())
+				.fetch();
+		List<Long> teamIds = teams.stream().map(tuple -> tuple.get(team.id)).toList();
+		Map<Long, List<MemberDto>> members = new HashMap<>();
+		Map<Long, Long> memberCounts = new HashMap<>();
+		if(!teamIds.isEmpty()) {
+			for (Object[] row : rosterMembers(teamIds)) {
+				Long teamId = (Long) row[0];
+				MemberDto member = new MemberDto();
+				member.setUserName((String) row[1]);
+				member.setAge((Integer) row[2]);
+				members.computeIfAbsent(teamId, id -> new ArrayList<>()).add(member);
+				memberCounts.put(teamId, ((Number) row[3]).longValue());
+			}
+		}
+		List<TeamRosterDto> content = teams.stream()
+				.map(tuple -> new TeamRosterDto(tuple.get(team.id), tuple.get(team.name), 
+						memberCounts.getOrDefault(tuple.get(team.id), 0L),
+						members.getOrDefault(tuple.get(team.id), List.of())))
+				.toList();
+		return PageableExecutionUtils.getPage(content, limited, 
+				() -> queryFactory.select(team.count()).from(team).fetchOne());
+	}
+
+	private List<Object[]> rosterMembers(List<Long> teamIds) {
+		if(!shards.isEnabled()) {
+			return rosterMembers(em, teamIds);
+		}
+		Map<EntityManagerFactory, List<Long>> teamIdsByShard = teamIds.stream()
+				.collect(Collectors.groupingBy(teamId -> shards.shardsFor(teamId).get(0)));
+		List<Object[]> rows = new ArrayList<>();
+		teamIdsByShard.forEach((shard, shardTeamIds) -> {
+			EntityManager shardEm = shard.createEntityManager();
+			try {
+				rows.addAll(rosterMembers(shardEm, shardTeamIds));
+			} finally {
+				shardEm.close();
+			}
+		});
+		return rows;
+	}
+
+	private List<Object[]> rosterMembers(EntityManager em, List<Long> teamIds) {
+		return em.createQuery(ROSTER_MEMBERS, Object[].class)
+				.setParameter("teamIds", teamIds)
+				.setParameter("limit", MAX_MEMBERS_PER_TEAM)
+				.getResultList();
+	}
+
+	//팀마다 회원 목록이 붙으므로 회원 검색과 같은 상한을 둔다. 정렬은 team.id 로 고정한다
+	private Pageable limitPageSize(Pageable pageable) {
+		if(pageable.isUnpaged()) {
+			return PageRequest.of(0, MemberRepositoryImpl.MAX_PAGE_SIZE);
+		}
+		return PageRequest.of(pageable.getPageNumber(), Math.min(pageable.getPageSize(), MemberRepositoryImpl.MAX_PAGE_SIZE));
+	}
+}
@@ -0,0 +1,103 @@
+package study.querydsl.service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.BulkLoadResult;
+import study.querydsl.entity.Member;
+import study.querydsl.event.EntityChangeEventPublisher;
+import study.querydsl.event.MemberBulkChangedEvent;
+import study.querydsl.shard.MemberShards;
+
+/**
+ * Team, Member 를 JDBC 배치로 대량 적재한다.
+ * batchSize 건마다 flush/clear 하고 commitInterval 건마다 커밋하므로 입력 크기와 상관없이 메모리가 일정하다.
+ * 기본 DataSource 에만 쓰므로 샤드가 있으면 Team 만 적재할 수 있고, Team 은 끝난 뒤 MemberBulkChangedEvent 로 샤드에 복제된다.
+ */
+@Service
+public class MemberBulkLoader {
+
+	private static final Logger log = LoggerFactory.getLogger(MemberBulkLoader.class);
+
+	private final EntityManager em;
+	private final TransactionTemplate transactionTemplate;
+	private final EntityChangeEventPublisher entityChangeEventPublisher;
+	private final ApplicationEventPublisher eventPublisher;
+	private final MemberShards shards;
+	private final int batchSize;
+	private final int commitInterval;
+	
+	public MemberBulkLoader(EntityManager em, TransactionTemplate transactionTemplate,
+			EntityChangeEventPublisher entityChangeEventPublisher, ApplicationEventPublisher eventPublisher, MemberShards shards,
+			@Value("${member.bulk-load.batch-size:1000}") int batchSize,
+			@Value("${member.bulk-load.commit-interval:50000}") int commitInterval) {
+		this.em = em;
+		this.transactionTemplate = transactionTemplate;
+		this.entityChangeEventPublisher = entityChangeEventPublisher;
+		this.eventPublisher = eventPublisher;
+		this.shards = shards;
+		this.batchSize = batchSize;
+		this.commitInterval = commitInterval;
+	}
+
+	/**
+	 * 참조되는 Team 은 그 Team 을 참조하는 Member 보다 먼저 나와야 한다.
+	 * Member 는 setTeam 으로 연관관계를 걸어서 넘겨야 Team.members 컬렉션에 쌓이지 않는다.
+	 * commitInterval 마다 커밋해야 하므로 이미 시작된 트랜잭션 안에서는 부를 수 없다.
+	 */
+	public BulkLoadResult load(Stream<?> entities) {
+		if(TransactionSynchronizationManager.isActualTransactionActive()) {
+			throw new IllegalStateException("bulk load commits per chunk and cannot join an existing transaction");
+		}
+		long start = System.nanoTime();
+		long rows = 0;
+		Iterator<?> iterator = entities.iterator();
+		try {
+			while (iterator.hasNext()) {
+				rows += entityChangeEventPublisher.withoutEvents(() -> transactionTemplate.execute(status -> persistChunk(iterator)));
+				log.info("bulk load: {} rows, {} rows/sec", rows, 
+						(long) new BulkLoadResult(rows, Duration.ofNanos(System.nanoTime() - start)).rowsPerSecond());
+			}
+		} finally {
+			//중간에 실패해도 이미 커밋된 구간은 캐시와 샤드가 따라가야 한다
+			if(rows > 0) {
+				eventPublisher.publishEvent(new MemberBulkChangedEvent());
+			}
+		}
+		
+		BulkLoadResult result = new BulkLoadResult(rows, Duration.ofNanos(System.nanoTime() - start));
+		log.info("bulk load finished: {} rows in {} ms, {} rows/sec", 
+				result.rows(), result.elapsed().toMillis(), (long) result.rowsPerSecond());
+		return result;
+	}
+
+	private long persistChunk(Iterator<?> iterator) {
+		em.unwrap(Session.class).setJdbcBatchSize(batchSize);
+		long count = 0;
+		while (count < commitInterval && iterator.hasNext()) {
+			Object entity = iterator.next();
+			if(entity instanceof Member) {
+				shards.requireUnsharded("bulk load of Member");
+			}
+			em.persist(entity);
+			if(++count % batchSize == 0) {
+				em.flush();
+				em.clear();
+			}
+		}
+		em.flush();
+		em.clear();
+		return count;
+	}
+}
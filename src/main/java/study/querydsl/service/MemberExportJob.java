@@ -0,0 +1,45 @@
+package study.querydsl.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * member.export.cron 이 있을 때만 켜진다. 같은 날 다시 돌면 남은 checkpoint 부터 이어서 쓴다.
+ */
+@Component
+@EnableScheduling
+@ConditionalOnProperty("member.export.cron")
+public class MemberExportJob {
+
+	private final MemberExporter memberExporter;
+	private final Path directory;
+	private final boolean gzip;
+	
+	public MemberExportJob(MemberExporter memberExporter, 
+			@Value("${member.export.directory:export}") Path directory,
+			@Value("${member.export.gzip:true}") boolean gzip) {
+		this.memberExporter = memberExporter;
+		this.directory = directory;
+		this.gzip = gzip;
+	}
+	
+	@Scheduled(cron = "${member.export.cron}")
+	public void run() {
+		try {
+			Files.createDirectories(directory);
+			String fileName = "members-" + LocalDate.now() + (gzip ? ".csv.gz" : ".csv");
+			memberExporter.export(directory.resolve(fileName), gzip);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
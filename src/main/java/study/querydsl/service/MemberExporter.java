@@ -0,0 +1,214 @@
+package study.querydsl.service;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.query.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+
+import jakarta.persistence.EntityManagerFactory;
+import study.querydsl.dto.MemberExportResult;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.shard.MemberShards;
+
+/**
+ * Member 와 Team 을 StatelessSession 커서로 읽어 CSV 파일로 내보낸다.
+ * 영속성 컨텍스트가 없으므로 행 수와 상관없이 메모리가 일정하다. 기본 DataSource 만 읽으므로 샤드가 있으면 쓸 수 없다.
+ */
+@Service
+public class MemberExporter {
+
+	private static final Logger log = LoggerFactory.getLogger(MemberExporter.class);
+	
+	static final String HEADER = "member_id,user_name,age,team_id,team_name\n";
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final QMemberTeamDto projection = new QMemberTeamDto(
+			member.id, 
+			member.userName, 
+			member.age, 
+			team.id, 
+			team.name);
+
+	private final SessionFactory sessionFactory;
+	private final MemberShards shards;
+	private final int fetchSize;
+	private final int checkpointInterval;
+	
+	public MemberExporter(EntityManagerFactory emf, MemberShards shards,
+			@Value("${member.export.fetch-size:1000}") int fetchSize,
+			@Value("${member.export.checkpoint-interval:10000}") int checkpointInterval) {
+		this.sessionFactory = emf.unwrap(SessionFactory.class);
+		this.shards = shards;
+		this.fetchSize = fetchSize;
+		this.checkpointInterval = checkpointInterval;
+	}
+
+	/**
+	 * checkpointInterval 건마다 마지막 member.id 와 파일 위치를 target.checkpoint 에 남긴다.
+	 * checkpoint 가 남아 있으면 그 위치까지 잘라내고 다음 member.id 부터 이어서 쓰고, 끝까지 쓰면 지운다.
+	 * gzip 이면 checkpoint 마다 gzip 멤버를 닫으므로 이어 쓴 파일도 하나의 gzip 으로 읽힌다.
+	 */
+	public MemberExportResult export(Path target, boolean gzip) throws IOException {
+		shards.requireUnsharded("export");
+		long start = System.nanoTime();
+		Path checkpointFile = checkpointOf(target);
+		Checkpoint checkpoint = Checkpoint.read(checkpointFile);
+		long lastMemberId = checkpoint.lastMemberId();
+		long rows = 0;
+		
+		try (FileChannel channel = FileChannel.open(target, CREATE, WRITE);
+				StatelessSession session = sessionFactory.openStatelessSession()) {
+			channel.truncate(checkpoint.position());
+			channel.position(checkpoint.position());
+			OutputStream channelOut = Channels.newOutputStream(channel);
+			
+			Transaction tx = session.beginTransaction();
+			try (ScrollableResults<Object[]> results = query(session, lastMemberId).scroll(ScrollMode.FORWARD_ONLY)) {
+				Writer writer = openChunk(channelOut, gzip);
+				if(checkpoint.position() == 0) {
+					writer.write(HEADER);
+				}
+				while (results.next()) {
+					MemberTeamDto row = projection.newInstance(results.get());
+					writeRow(writer, row);
+					lastMemberId = row.getMemberId();
+					if(++rows % checkpointInterval == 0) {
+						closeChunk(writer, channel, checkpointFile, lastMemberId);
+						writer = openChunk(channelOut, gzip);
+						log.info("export: {} rows, {} rows/sec", rows, 
+								(long) new MemberExportResult(rows, lastMemberId, Duration.ofNanos(System.nanoTime() - start)).rowsPerSecond());
+					}
+				}
+				closeChunk(writer, channel, checkpointFile, lastMemberId);
+				tx.commit();
+			} finally {
+				if(tx.isActive()) {
+					tx.rollback();
+				}
+			}
+		}
+		Files.deleteIfExists(checkpointFile);
+		
+		MemberExportResult result = new MemberExportResult(rows, lastMemberId, Duration.ofNanos(System.nanoTime() - start));
+		log.info("export finished: {} rows in {} ms, {} rows/sec, last member id {}", 
+				result.rows(), result.elapsed().toMillis(), (long) result.rowsPerSecond(), result.lastMemberId());
+		return result;
+	}
+	
+	//querydsl 의 HibernateQuery 는 Hibernate 6 과 맞지 않아 JPQL 로 직렬화해서 StatelessSession 에 넘긴다
+	private Query<Object[]> query(StatelessSession session, long lastMemberId) {
+		JPAQuery<MemberTeamDto> query = new JPAQuery<>()
+				.select(projection)
+				.from(member)
+				.leftJoin(member.team, team)
+				.where(member.id.gt(lastMemberId))
+				.orderBy(member.id.asc());
+		JPQLSerializer serializer = new JPQLSerializer(HQLTemplates.DEFAULT);
+		serializer.serialize(query.getMetadata(), false, null);
+		
+		Query<Object[]> hibernateQuery = session.createQuery(serializer.toString(), Object[].class)
+				.setFetchSize(fetchSize)
+				.setReadOnly(true);
+		JPAUtil.setConstants(hibernateQuery, serializer.getConstants(), Map.of());
+		return hibernateQuery;
+	}
+	
+	static Path checkpointOf(Path target) {
+		return target.resolveSibling(target.getFileName() + ".checkpoint");
+	}
+
+	private Writer openChunk(OutputStream channelOut, boolean gzip) throws IOException {
+		//chunk 를 닫아도 채널은 열어 둔다
+		OutputStream shield = new FilterOutputStream(channelOut) {
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+			}
+			
+			@Override
+			public void close() throws IOException {
+				flush();
+			}
+		};
+		OutputStream out = gzip ? new GZIPOutputStream(shield, BUFFER_SIZE) : new BufferedOutputStream(shield, BUFFER_SIZE);
+		return new OutputStreamWriter(out, StandardCharsets.UTF_8);
+	}
+
+	private void closeChunk(Writer writer, FileChannel channel, Path checkpointFile, long lastMemberId) throws IOException {
+		writer.close();
+		channel.force(false);
+		new Checkpoint(lastMemberId, channel.position()).write(checkpointFile);
+	}
+
+	private void writeRow(Writer writer, MemberTeamDto row) throws IOException {
+		writer.write(Long.toString(row.getMemberId()));
+		writer.write(',');
+		writer.write(csv(row.getUserName()));
+		writer.write(',');
+		writer.write(Integer.toString(row.getAge()));
+		writer.write(',');
+		writer.write(row.getTeamId() == null ? "" : Long.toString(row.getTeamId()));
+		writer.write(',');
+		writer.write(csv(row.getTeamName()));
+		writer.write('\n');
+	}
+
+	private String csv(String value) {
+		if(value == null) {
+			return "";
+		}
+		if(value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	record Checkpoint(long lastMemberId, long position) {
+		
+		static Checkpoint read(Path file) throws IOException {
+			if(!Files.exists(file)) {
+				return new Checkpoint(0, 0);
+			}
+			String[] values = Files.readString(file).trim().split(" ");
+			return new Checkpoint(Long.parseLong(values[0]), Long.parseLong(values[1]));
+		}
+		
+		void write(Path file) throws IOException {
+			Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+			Files.writeString(tmp, lastMemberId + " " + position);
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package study.querydsl.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+
+@Service
+public class MemberStreamService {
+
+	private final MemberJpaRepository memberJpaRepository;
+	private final ObjectMapper objectMapper;
+	private final int fetchSize;
+	
+	public MemberStreamService(MemberJpaRepository memberJpaRepository, ObjectMapper objectMapper,
+			@Value("${member.stream.fetch-size:500}") int fetchSize) {
+		this.memberJpaRepository = memberJpaRepository;
+		this.objectMapper = objectMapper;
+		this.fetchSize = fetchSize;
+	}
+	
+	//한 줄에 MemberTeamDto 하나씩(NDJSON) 쓰고, fetchSize 단위로 flush 해서 결과 전체를 메모리에 올리지 않는다
+	@Transactional(readOnly = true)
+	public long writeNdjson(MemberSearchCondition condition, OutputStream out) throws IOException {
+		ObjectWriter writer = objectMapper.writerFor(MemberTeamDto.class)
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		long count = 0;
+		try (Stream<MemberTeamDto> stream = memberJpaRepository.searchStream(condition, fetchSize);
+				JsonGenerator generator = objectMapper.createGenerator(out)) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			//루트 값 사이에 기본으로 들어가는 공백 대신 줄바꿈만 둔다
+			generator.setRootValueSeparator(null);
+			Iterator<MemberTeamDto> iterator = stream.iterator();
+			while (iterator.hasNext()) {
+				writer.writeValue(generator, iterator.next());
+				generator.writeRaw('\n');
+				if(++count % fetchSize == 0) {
+					generator.flush();
+				}
+			}
+			generator.flush();
+		}
+		return count;
+	}
+}
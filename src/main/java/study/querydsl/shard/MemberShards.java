@@ -0,0 +1,200 @@
+package study.querydsl.shard;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.context.event.EventListener;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import study.querydsl.entity.Member;
+import study.querydsl.event.MemberBulkChangedEvent;
+import study.querydsl.event.TeamChangedEvent;
+
+/**
+ * member 를 team_id 로 나눠 담는 샤드들. 샤드마다 따로 EntityManagerFactory 를 두고 같은 엔티티로 스키마를 만든다.
+ * team 은 모든 샤드에 복제해서 샤드 안에서 join 이 되게 하고, 원본은 기본 DataSource 의 team 이며 TeamChangedEvent 로 따라간다.
+ * 이벤트 없이 들어온 team(벌크 적재 등)은 MemberBulkChangedEvent 때 전체 team 을 다시 복제해서 따라간다.
+ * 샤드마다 member id 구간을 나눠(ID_RANGE) 여러 샤드의 결과를 합쳐도 id 가 겹치지 않는다.
+ * 팀을 옮겨 샤드가 바뀌는 member 는 지원하지 않는다.
+ * 샤드를 따라가는 것은 search, searchpageComplex, searchStream, MemberJpaRepository.search/save, findRosters 이고,
+ * 기본 DataSource 의 member 만 보는 나머지 작업은 샤드가 있으면 requireUnsharded 로 IllegalStateException 을 낸다.
+ */
+@Component
+@EnableConfigurationProperties(ShardProperties.class)
+public class MemberShards implements DisposableBean {
+
+	static final long ID_RANGE = 1L << 48;
+
+	private final List<LocalContainerEntityManagerFactoryBean> factoryBeans = new ArrayList<>();
+	private final List<EntityManagerFactory> shards = new ArrayList<>();
+	private final EntityManagerFactory primary;
+
+	public MemberShards(ShardProperties properties, EntityManagerFactoryBuilder builder, JpaProperties jpaProperties,
+			HibernateProperties hibernateProperties, MeterRegistry meterRegistry, EntityManagerFactory primary) {
+		this.primary = primary;
+		Map<String, Object> jpa = new HashMap<>(
+				hibernateProperties.determineHibernateProperties(jpaProperties.getProperties(), new HibernateSettings()));
+		//team 을 여러 샤드가 같은 캐시 영역에 쓰지 않도록 2차 캐시는 끈다
+		jpa.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+		jpa.put(AvailableSettings.USE_QUERY_CACHE, false);
+
+		for (int i = 0; i < properties.getDatabases().size(); i++) {
+			ShardProperties.Database database = properties.getDatabases().get(i);
+			HikariDataSource dataSource = DataSourceBuilder.create()
+					.type(HikariDataSource.class)
+					.url(database.getUrl())
+					.username(database.getUsername())
+					.password(database.getPassword())
+					.build();
+			dataSource.setPoolName("shard-" + i);
+			dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+			LocalContainerEntityManagerFactoryBean factoryBean = builder
+					.dataSource(dataSource)
+					.packages(Member.class)
+					.persistenceUnit("shard-" + i)
+					.properties(jpa)
+					.build();
+			factoryBean.afterPropertiesSet();
+			factoryBeans.add(factoryBean);
+			shards.add(factoryBean.getObject());
+			reserveIdRange(i);
+		}
+	}
+
+	public boolean isEnabled() {
+		return !shards.isEmpty();
+	}
+
+	/**
+	 * 기본 DataSource 의 member 를 읽거나 쓰는 작업은 샤드가 있으면 조용히 빈 결과를 내는 대신 바로 실패한다.
+	 */
+	public void requireUnsharded(String operation) {
+		if(isEnabled()) {
+			throw new IllegalStateException(operation + " is not supported when member.shard.databases is configured");
+		}
+	}
+
+	public int size() {
+		return shards.size();
+	}
+
+	//team 이 없는 member 는 0번 샤드에 둔다
+	public int shardOf(Long teamId) {
+		return teamId == null ? 0 : (int) Math.floorMod(teamId, (long) shards.size());
+	}
+
+	/**
+	 * teamId 를 알면 그 팀의 샤드 하나, 모르면 모든 샤드.
+	 */
+	public List<EntityManagerFactory> shardsFor(Long teamId) {
+		return teamId == null ? List.copyOf(shards) : List.of(shards.get(shardOf(teamId)));
+	}
+
+	/**
+	 * member.team 의 샤드에 저장한다. team 은 기본 DataSource 에 먼저 커밋되어 샤드에 복제된 팀이어야 한다.
+	 */
+	public void save(Member member) {
+		Long teamId = member.getTeam() == null ? null : member.getTeam().getId();
+		inTransaction(shards.get(shardOf(teamId)), em -> em.persist(member));
+	}
+
+	@EventListener
+	public void onTeamChanged(TeamChangedEvent event) {
+		boolean deleted = event.nameAfter() == null && event.nameBefore() != null;
+		for (EntityManagerFactory shard : shards) {
+			inTransaction(shard, em -> {
+				if(deleted) {
+					em.createNativeQuery("delete from team where id = ?1")
+							.setParameter(1, event.teamId())
+							.executeUpdate();
+					return;
+				}
+				upsertTeam(em, event.teamId(), event.nameAfter());
+			});
+		}
+	}
+
+	//벌크 적재나 벌크 변경은 TeamChangedEvent 를 남기지 않으므로 기본 DataSource 의 team 을 모두 다시 복제한다. 지워진 team 은 따라가지 않는다
+	@EventListener
+	public void onMemberBulkChanged(MemberBulkChangedEvent event) {
+		if(!isEnabled()) {
+			return;
+		}
+		List<Object[]> teams;
+		EntityManager em = primary.createEntityManager();
+		try {
+			teams = em.createQuery("select t.id, t.name from Team t", Object[].class).getResultList();
+		} finally {
+			em.close();
+		}
+		for (EntityManagerFactory shard : shards) {
+			inTransaction(shard, shardEm -> teams.forEach(team -> upsertTeam(shardEm, (Long) team[0], (String) team[1])));
+		}
+	}
+
+	private void upsertTeam(EntityManager em, Long teamId, String name) {
+		int updated = em.createNativeQuery("update team set name = ?1 where id = ?2")
+				.setParameter(1, name)
+				.setParameter(2, teamId)
+				.executeUpdate();
+		if(updated == 0) {
+			em.createNativeQuery("insert into team (id, name) values (?1, ?2)")
+					.setParameter(1, teamId)
+					.setParameter(2, name)
+					.executeUpdate();
+		}
+	}
+
+	@Override
+	public void destroy() {
+		factoryBeans.forEach(LocalContainerEntityManagerFactoryBean::destroy);
+		factoryBeans.forEach(factoryBean -> ((HikariDataSource) factoryBean.getDataSource()).close());
+	}
+
+	//빈 샤드의 member_seq 를 그 샤드 구간의 시작으로 옮긴다
+	private void reserveIdRange(int index) {
+		inTransaction(shards.get(index), em -> {
+			Number members = (Number) em.createNativeQuery("select count(*) from member").getSingleResult();
+			if(members.longValue() == 0) {
+				em.createNativeQuery("alter sequence member_seq restart with " + (index * ID_RANGE + 1)).executeUpdate();
+			}
+		});
+	}
+
+	private void inTransaction(EntityManagerFactory shard, Consumer<EntityManager> work) {
+		EntityManager em = shard.createEntityManager();
+		EntityTransaction transaction = em.getTransaction();
+		try {
+			transaction.begin();
+			work.accept(em);
+			transaction.commit();
+		} catch (RuntimeException e) {
+			if(transaction.isActive()) {
+				transaction.rollback();
+			}
+			throw e;
+		} finally {
+			em.close();
+		}
+	}
+}
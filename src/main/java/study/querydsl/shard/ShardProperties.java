@@ -0,0 +1,25 @@
+package study.querydsl.shard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * member 를 team_id 로 나눠 담을 샤드 DB 목록. 비어 있으면 샤딩하지 않고 기본 DataSource 만 쓴다.
+ */
+@Getter @Setter
+@ConfigurationProperties("member.shard")
+public class ShardProperties {
+	private List<Database> databases = new ArrayList<>();
+
+	@Getter @Setter
+	public static class Database {
+		private String url;
+		private String username;
+		private String password;
+	}
+}
@@ -3,11 +3,13 @@ package study.querydsl;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
 import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 
 
+@ActiveProfiles("test")
 @SpringBootTest
 @Transactional
 class QuerydslApplicationTests {
@@ -0,0 +1,126 @@
+package study.querydsl.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+
+//primary 와 다른 H2 메모리 DB 를 복제본으로 써서 어느 쪽에서 읽었는지 결과로 구분한다
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+		"member.datasource.replicas[0].url=" + DataSourceRoutingTest.REPLICA_URL,
+		"member.datasource.lag-query=select seconds from replica_lag",
+		"member.datasource.max-lag=5s",
+		"member.datasource.check-interval=1h"
+})
+public class DataSourceRoutingTest {
+	static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+	JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+	@Autowired EntityManager em;
+	@Autowired TransactionTemplate transactionTemplate;
+	@Autowired JdbcTemplate jdbcTemplate;
+	@Autowired MeterRegistry meterRegistry;
+	@Autowired ReplicaRoutingDataSource replicaDataSource;
+	@Autowired MemberJpaRepository memberJpaRepository;
+
+	@BeforeEach
+	public void before() {
+		//primary 의 스키마를 복제본에 만들고 복제본에만 있는 행을 넣는다
+		jdbcTemplate.queryForList("script nodata", String.class).forEach(replica::execute);
+		replica.update("insert into member(member_id, user_name, age) values (1, 'member1', 99)");
+		replica.execute("create table replica_lag(seconds int)");
+		replica.update("insert into replica_lag values (0)");
+		replicaDataSource.checkReplicas();
+	}
+
+	@AfterEach
+	public void after() {
+		transactionTemplate.executeWithoutResult(status -> em.createQuery("delete from Member").executeUpdate());
+		replica.execute("drop all objects");
+	}
+
+	@Test
+	public void readOnlySearchUsesReplicaTest() {
+		long before = replicaUsage();
+		transactionTemplate.executeWithoutResult(status -> em.persist(new Member("member1", 10)));
+		assertThat(replicaUsage()).isEqualTo(before);
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUserName("member1");
+		assertThat(memberJpaRepository.search(condition)).extracting("age").containsExactly(99);
+		assertThat(replicaUsage()).isEqualTo(before + 1);
+		assertThat(meterRegistry.find("hikaricp.connections").tag("pool", "primary").gauge()).isNotNull();
+		assertThat(meterRegistry.find("hikaricp.connections").tag("pool", "replica-0").gauge()).isNotNull();
+	}
+
+	@Test
+	public void laggingReplicaFallsBackToPrimaryTest() {
+		replica.update("update replica_lag set seconds = 60");
+		replicaDataSource.checkReplicas();
+		Gauge available = meterRegistry.get("member.datasource.replica.available").tag("pool", "replica-0").gauge();
+		assertThat(available.value()).isZero();
+
+		long before = replicaUsage();
+		MemberSearchCondition condition = new MemberSearchCondition();
+		assertThat(memberJpaRepository.search(condition)).isEmpty();
+		assertThat(replicaUsage()).isEqualTo(before);
+
+		replica.update("update replica_lag set seconds = 0");
+		replicaDataSource.checkReplicas();
+		assertThat(available.value()).isEqualTo(1);
+	}
+
+	@Test
+	public void searchFromLaggingReplicaIsNotCachedTest() {
+		//복제본은 지연 한도 안에서 뒤처져 있고 primary 의 커밋이 아직 복제본에 없다
+		replica.update("update replica_lag set seconds = 3");
+		replicaDataSource.checkReplicas();
+		transactionTemplate.executeWithoutResult(status -> em.persist(new Member("member1", 10)));
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUserName("member1");
+		assertThat(memberJpaRepository.search(condition)).extracting("age").containsExactly(99);
+
+		//복제본이 따라온 뒤의 검색은 앞서 읽은 늦은 결과를 캐시에서 꺼내지 않는다
+		replica.update("update member set age = 10 where user_name = 'member1'");
+		assertThat(memberJpaRepository.search(condition)).extracting("age").containsExactly(10);
+	}
+
+	@Test
+	public void credentialsFollowRoutingTest() throws Exception {
+		try (Connection connection = replicaDataSource.getConnection("sa", "")) {
+			assertThat(connection.getMetaData().getURL()).startsWith("jdbc:h2:mem:replica");
+		}
+
+		replica.update("update replica_lag set seconds = 60");
+		replicaDataSource.checkReplicas();
+		try (Connection connection = replicaDataSource.getConnection("sa", "")) {
+			assertThat(connection.getMetaData().getURL()).startsWith("jdbc:h2:mem:querydsl");
+		}
+	}
+
+	//복제본 풀에서 커넥션을 돌려받은 횟수
+	private long replicaUsage() {
+		Timer usage = meterRegistry.find("hikaricp.connections.usage").tag("pool", "replica-0").timer();
+		return usage == null ? 0 : usage.count();
+	}
+}
@@ -1,12 +1,17 @@
 package study.querydsl.entity;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 
+@ActiveProfiles("test")
 @SpringBootTest
 @Transactional
 public class MemberTest {
@@ -30,4 +35,32 @@ public class MemberTest {
 		em.flush();
 		em.clear();
 	}
+	
+	@Test
+	public void changeTeamKeepsMembersLazyTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+		Member member1 = new Member("member1", 10, teamA);
+		em.persist(member1);
+		assertThat(teamA.getMembers()).containsExactly(member1);
+		em.flush();
+		em.clear();
+		
+		//읽지 않은 컬렉션과 프록시는 그대로 둔다
+		Team findTeamA = em.find(Team.class, teamA.getId());
+		Team teamBReference = em.getReference(Team.class, teamB.getId());
+		Member member2 = new Member("member2", 20, findTeamA);
+		em.persist(member2);
+		member2.changeTeam(teamBReference);
+		assertThat(Hibernate.isInitialized(findTeamA.getMembers())).isFalse();
+		assertThat(Hibernate.isInitialized(teamBReference)).isFalse();
+		
+		//이미 읽은 컬렉션은 양쪽 모두 맞춰 준다
+		Member findMember1 = em.find(Member.class, member1.getId());
+		assertThat(findTeamA.getMembers()).containsExactly(findMember1);
+		findMember1.changeTeam(teamBReference);
+		assertThat(findTeamA.getMembers()).isEmpty();
+	}
 }
@@ -0,0 +1,106 @@
+package study.querydsl.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.MemberBulkChangedEvent;
+import study.querydsl.repository.TeamNameIndex;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = "member.search.cache.enabled=false")
+@AutoConfigureMockMvc
+public class QueryMetricsTest {
+	@Autowired MockMvc mockMvc;
+	@Autowired MeterRegistry meterRegistry;
+	@Autowired EntityManager em;
+	@Autowired TransactionTemplate transactionTemplate;
+	@Autowired ApplicationEventPublisher eventPublisher;
+	@Autowired TeamNameIndex teamNameIndex;
+	
+	//다른 데이터가 있어도 집계가 이 팀의 member 만 세도록 겹치지 않는 이름을 쓴다
+	static final String TEAM_NAME = "queryMetricsTeam";
+	
+	Team team;
+	
+	@BeforeEach
+	public void before() {
+		transactionTemplate.executeWithoutResult(status -> {
+			team = new Team(TEAM_NAME);
+			em.persist(team);
+			for (int i = 0; i < 5; i++) {
+				em.persist(new Member("member" + i, i * 10, team));
+			}
+		});
+		//teamName -> teamId 맵을 미리 읽어 둔다
+		eventPublisher.publishEvent(new MemberBulkChangedEvent());
+		teamNameIndex.teamIdOf(TEAM_NAME);
+		meterRegistry.clear();
+	}
+	
+	@AfterEach
+	public void after() {
+		transactionTemplate.executeWithoutResult(status -> {
+			em.createQuery("delete from Member m where m.team = :team").setParameter("team", team).executeUpdate();
+			em.createQuery("delete from Team t where t = :team").setParameter("team", team).executeUpdate();
+		});
+	}
+	
+	@Test
+	public void requestQueryCountTest() throws Exception {
+		mockMvc.perform(get("/v1/members").param("teamName", TEAM_NAME))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(5));
+		
+		DistributionSummary statements = meterRegistry.get("member.request.statements").tag("uri", "/v1/members").summary();
+		DistributionSummary rows = meterRegistry.get("member.request.rows").tag("uri", "/v1/members").summary();
+		assertThat(statements.count()).isEqualTo(1);
+		assertThat(statements.totalAmount()).isEqualTo(1);
+		assertThat(rows.totalAmount()).isEqualTo(5);
+		assertThat(meterRegistry.get("member.repository").tag("method", "search").timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("http.server.requests").tag("uri", "/v1/members").timer().count()).isEqualTo(1);
+	}
+	
+	@Test
+	public void pageQueryCountTest() throws Exception {
+		mockMvc.perform(get("/v3/members").param("teamName", TEAM_NAME).param("size", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalElements").value(5));
+		
+		//꽉 찬 페이지라 전체 개수를 알려면 count 가 필요하다
+		DistributionSummary statements = meterRegistry.get("member.request.statements").tag("uri", "/v3/members").summary();
+		DistributionSummary rows = meterRegistry.get("member.request.rows").tag("uri", "/v3/members").summary();
+		assertThat(statements.totalAmount()).isEqualTo(2);
+		assertThat(rows.totalAmount()).isEqualTo(3);
+		assertThat(meterRegistry.get("spring.data.repository.invocations").tag("method", "searchpageComplex").timer().count())
+				.isEqualTo(1);
+	}
+	
+	@Test
+	public void lastPageSkipsCountTest() throws Exception {
+		mockMvc.perform(get("/v3/members").param("teamName", TEAM_NAME).param("size", "10"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalElements").value(5));
+		
+		//content 가 페이지보다 적으면 그 개수가 전체 개수라 count 를 실행하지 않는다
+		DistributionSummary statements = meterRegistry.get("member.request.statements").tag("uri", "/v3/members").summary();
+		assertThat(statements.totalAmount()).isEqualTo(1);
+	}
+}
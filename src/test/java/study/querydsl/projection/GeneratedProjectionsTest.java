@@ -0,0 +1,115 @@
+package study.querydsl.projection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@Transactional
+public class GeneratedProjectionsTest {
+	@Autowired EntityManager em;
+	JPAQueryFactory queryFactory;
+	
+	@BeforeEach
+	public void before() {
+		queryFactory = new JPAQueryFactory(em);
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member(null, 30));
+	}
+	
+	@Test
+	public void beanMatchesProjectionsBean() {
+		List<MemberDto> result = queryFactory
+				.select(GeneratedProjections.bean(MemberDto.class, 
+						member.userName, 
+						member.age))
+				.from(member)
+				.orderBy(member.age.asc())
+				.fetch();
+		
+		List<MemberDto> expected = queryFactory
+				.select(Projections.bean(MemberDto.class, 
+						member.userName, 
+						member.age))
+				.from(member)
+				.orderBy(member.age.asc())
+				.fetch();
+		
+		assertThat(result).isEqualTo(expected);
+		assertThat(result).extracting("userName").containsExactly("member1", "member2", null);
+	}
+	
+	@Test
+	public void fieldsMatchesProjectionsFields() {
+		List<MemberDto> result = queryFactory
+				.select(GeneratedProjections.fields(MemberDto.class, 
+						member.userName.as("userName"), 
+						member.age))
+				.from(member)
+				.orderBy(member.age.asc())
+				.fetch();
+		
+		List<MemberDto> expected = queryFactory
+				.select(Projections.fields(MemberDto.class, 
+						member.userName.as("userName"), 
+						member.age))
+				.from(member)
+				.orderBy(member.age.asc())
+				.fetch();
+		
+		assertThat(result).isEqualTo(expected);
+		assertThat(result).extracting("age").containsExactly(10, 20, 30);
+	}
+	
+	@Test
+	public void constructorMatchesProjectionsConstructor() {
+		List<MemberTeamDto> result = queryFactory
+				.select(GeneratedProjections.constructor(MemberTeamDto.class, 
+						member.id, 
+						member.userName, 
+						member.age, 
+						team.id, 
+						team.name))
+				.from(member)
+				.join(member.team, team)
+				.orderBy(member.age.asc())
+				.fetch();
+		
+		List<MemberTeamDto> expected = queryFactory
+				.select(Projections.constructor(MemberTeamDto.class, 
+						member.id, 
+						member.userName, 
+						member.age, 
+						team.id, 
+						team.name))
+				.from(member)
+				.join(member.team, team)
+				.orderBy(member.age.asc())
+				.fetch();
+		
+		assertThat(result).isEqualTo(expected);
+		assertThat(result).extracting("teamName").containsExactly("teamA", "teamA");
+	}
+}
@@ -0,0 +1,131 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.MemberBulkChangedEvent;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {"member.search.cache.enabled=false", "member.search.page.concurrent=true", 
+		"member.search.page.max-in-flight=1"})
+@AutoConfigureMockMvc
+public class ConcurrentQueryExecutorTest {
+	@Autowired EntityManager em;
+	@Autowired TransactionTemplate transactionTemplate;
+	@Autowired MemberRepository memberRepository;
+	@Autowired ConcurrentQueryExecutor concurrentQueryExecutor;
+	@Autowired MockMvc mockMvc;
+	@Autowired MeterRegistry meterRegistry;
+	@Autowired ApplicationEventPublisher eventPublisher;
+	@Autowired TeamNameIndex teamNameIndex;
+	
+	@BeforeEach
+	public void before() {
+		transactionTemplate.executeWithoutResult(status -> {
+			Team teamA = new Team("teamA");
+			Team teamB = new Team("teamB");
+			em.persist(teamA);
+			em.persist(teamB);
+			for (int i = 0; i < 10; i++) {
+				em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+			}
+		});
+	}
+	
+	@AfterEach
+	public void after() {
+		transactionTemplate.executeWithoutResult(status -> {
+			em.createQuery("delete from Member").executeUpdate();
+			em.createQuery("delete from Team").executeUpdate();
+		});
+	}
+	
+	@Test
+	public void searchPageConcurrentTest() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		
+		assertThat(concurrentQueryExecutor.isAvailable()).isTrue();
+		Page<MemberTeamDto> result = memberRepository.searchpageComplex(condition, PageRequest.of(0, 2, Sort.by("age")));
+		
+		assertThat(result.getContent()).extracting("userName").containsExactly("member0", "member2");
+		assertThat(result.getTotalElements()).isEqualTo(5);
+	}
+	
+	@Test
+	public void concurrentPageQueryCountTest() throws Exception {
+		//teamName -> teamId 맵을 미리 읽어 둔다
+		eventPublisher.publishEvent(new MemberBulkChangedEvent());
+		teamNameIndex.teamIdOf("teamA");
+		meterRegistry.clear();
+		mockMvc.perform(get("/v3/members").param("teamName", "teamA").param("size", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalElements").value(5));
+		
+		//content, count 쿼리는 다른 스레드에서 돌지만 요청 집계에 더해진다
+		assertThat(meterRegistry.get("member.request.statements").tag("uri", "/v3/members").summary().totalAmount())
+				.isEqualTo(2);
+	}
+	
+	@Test
+	public void pagePermitTest() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		
+		//자리가 없으면 기다리지 않고 호출 스레드에서 순서대로 실행한다
+		assertThat(concurrentQueryExecutor.tryAcquirePage()).isTrue();
+		try {
+			assertThat(concurrentQueryExecutor.tryAcquirePage()).isFalse();
+			Page<MemberTeamDto> result = memberRepository.searchpageComplex(condition, PageRequest.of(0, 2, Sort.by("age")));
+			assertThat(result.getTotalElements()).isEqualTo(5);
+		} finally {
+			concurrentQueryExecutor.releasePage();
+		}
+		//끝난 페이지는 자리를 돌려준다
+		assertThat(concurrentQueryExecutor.tryAcquirePage()).isTrue();
+		concurrentQueryExecutor.releasePage();
+	}
+	
+	@Test
+	public void transactionRunsOnCallerTest() {
+		Boolean available = transactionTemplate.execute(status -> concurrentQueryExecutor.isAvailable());
+		assertThat(available).isFalse();
+		
+		//읽기 전용 트랜잭션에는 커밋 전 변경이 없으므로 동시에 실행해도 된다
+		TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+		readOnly.setReadOnly(true);
+		Boolean availableInReadOnly = readOnly.execute(status -> concurrentQueryExecutor.isAvailable());
+		assertThat(availableInReadOnly).isTrue();
+	}
+	
+	@Test
+	public void submitTest() {
+		String threadName = concurrentQueryExecutor.join(concurrentQueryExecutor.submit(em -> {
+			assertThat(em.createQuery("select count(m) from Member m", Long.class).getSingleResult()).isEqualTo(10);
+			return Thread.currentThread().getName();
+		}));
+		assertThat(threadName).startsWith("member-query-");
+	}
+}
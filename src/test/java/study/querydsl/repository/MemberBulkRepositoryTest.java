@@ -0,0 +1,111 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import study.querydsl.dto.BulkMutationResult;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.MemberBulkChangedEvent;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = "member.bulk-mutation.chunk-size=10")
+public class MemberBulkRepositoryTest {
+	@Autowired EntityManager em;
+	@Autowired EntityManagerFactory emf;
+	@Autowired TransactionTemplate transactionTemplate;
+	@Autowired ApplicationEventPublisher eventPublisher;
+	@Autowired MemberBulkRepository memberBulkRepository;
+	@Autowired MemberRepository memberRepository;
+
+	@BeforeEach
+	public void before() {
+		transactionTemplate.executeWithoutResult(status -> {
+			Team teamA = new Team("teamA");
+			em.persist(teamA);
+			for (int i = 0; i < 25; i++) {
+				em.persist(new Member("member" + i, i, teamA));
+			}
+		});
+	}
+
+	@AfterEach
+	public void after() {
+		transactionTemplate.executeWithoutResult(status -> {
+			em.createQuery("delete from Member").executeUpdate();
+			em.createQuery("delete from Team").executeUpdate();
+		});
+		eventPublisher.publishEvent(new MemberBulkChangedEvent());
+	}
+
+	@Test
+	public void chunkedUpdateTest() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUserName("비회원");
+		assertThat(memberRepository.search(condition)).isEmpty();
+
+		List<BulkMutationResult> progress = new ArrayList<>();
+		BulkMutationResult result = memberBulkRepository.update(member.age.lt(18),
+				update -> update.set(member.userName, "비회원"), progress::add);
+
+		assertThat(result.rows()).isEqualTo(18);
+		assertThat(result.chunks()).isEqualTo(3);
+		assertThat(progress).extracting(BulkMutationResult::rows).containsExactly(10L, 18L, 18L);
+		//캐시된 검색 결과도 커밋된 구간을 바로 반영한다
+		assertThat(memberRepository.search(condition)).hasSize(18);
+	}
+
+	@Test
+	public void chunkedReassignTest() {
+		Team teamB = new Team("teamB");
+		transactionTemplate.executeWithoutResult(status -> em.persist(teamB));
+		List<Long> memberIds = em.createQuery("select m.id from Member m", Long.class).getResultList();
+		Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		//in 목록이 bulk-mutation.chunk-size 를 넘지 않게 10, 10, 5 개로 나눠 update 한다
+		long count = memberRepository.reassignTeam(memberIds, teamB.getId());
+
+		assertThat(count).isEqualTo(25);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamB");
+		assertThat(memberRepository.search(condition)).hasSize(25);
+	}
+
+	@Test
+	public void chunkedDeleteTest() {
+		BulkMutationResult result = memberBulkRepository.delete(member.age.goe(5));
+
+		assertThat(result.rows()).isEqualTo(20);
+		assertThat(result.chunks()).isEqualTo(3);
+		assertThat(memberRepository.count()).isEqualTo(5);
+	}
+
+	@Test
+	public void rejectsOuterTransactionTest() {
+		assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(
+				status -> memberBulkRepository.delete(member.age.goe(5))))
+				.isInstanceOf(InvalidDataAccessApiUsageException.class);
+		assertThat(memberRepository.count()).isEqualTo(25);
+	}
+}
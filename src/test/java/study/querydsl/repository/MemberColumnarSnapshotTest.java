@@ -0,0 +1,160 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.MemberBulkChangedEvent;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {"member.search.cache.enabled=false", "member.search.snapshot.enabled=true", 
+		"member.search.snapshot.compact-min-rows=4"})
+public class MemberColumnarSnapshotTest {
+	@Autowired EntityManager em;
+	@Autowired TransactionTemplate transactionTemplate;
+	@Autowired ApplicationEventPublisher eventPublisher;
+	@Autowired MemberColumnarSnapshot snapshot;
+	@Autowired MemberSearchQueryCache searchQueryCache;
+	@Autowired MemberRepository memberRepository;
+
+	Long teamAId;
+	Long teamBId;
+	Long member5Id;
+
+	@BeforeEach
+	public void before() {
+		eventPublisher.publishEvent(new MemberBulkChangedEvent());
+		transactionTemplate.executeWithoutResult(status -> {
+			Team teamA = new Team("teamA");
+			Team teamB = new Team("teamB");
+			em.persist(teamA);
+			em.persist(teamB);
+			em.persist(new Member("member1", 10, teamA));
+			em.persist(new Member("member2", 20, teamA));
+			em.persist(new Member("member3", 30, teamB));
+			em.persist(new Member("member4", 40, teamB));
+			Member member5 = new Member("member5", 50);
+			em.persist(member5);
+			member5Id = member5.getId();
+			teamAId = teamA.getId();
+			teamBId = teamB.getId();
+		});
+	}
+
+	@AfterEach
+	public void after() {
+		//이 테스트가 만든 팀의 member 와 팀이 없는 member5 만 지운다
+		List<Long> teamIds = List.of(teamAId, teamBId);
+		transactionTemplate.executeWithoutResult(status -> {
+			em.createQuery("delete from Member m where m.team.id in :teamIds or m.id = :member5Id")
+					.setParameter("teamIds", teamIds)
+					.setParameter("member5Id", member5Id)
+					.executeUpdate();
+			em.createQuery("delete from Team t where t.id in :teamIds").setParameter("teamIds", teamIds).executeUpdate();
+		});
+		eventPublisher.publishEvent(new MemberBulkChangedEvent());
+	}
+
+	@Test
+	public void sameResultAsQueryTest() {
+		String[] userNames = {null, "", "member2", "nobody"};
+		String[] teamNames = {null, " ", "teamA", "teamB", "teamC"};
+		Integer[] ages = {null, 10, 35, 60};
+		for (String userName : userNames) {
+			for (String teamName : teamNames) {
+				for (Integer ageGoe : ages) {
+					for (Integer ageLoe : ages) {
+						MemberSearchCondition condition = new MemberSearchCondition();
+						condition.setUserName(userName);
+						condition.setTeamName(teamName);
+						condition.setAgeGoe(ageGoe);
+						condition.setAgeLoe(ageLoe);
+
+						List<MemberTeamDto> expected = transactionTemplate.execute(status -> {
+							status.setRollbackOnly();
+							return searchQueryCache.search(condition);
+						});
+						assertThat(snapshot.search(condition)).as(condition.toString())
+								.containsExactlyInAnyOrderElementsOf(expected);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void incrementalRefreshTest() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		assertThat(memberRepository.search(condition)).extracting("userName").containsExactly("member1", "member2");
+
+		Long memberId = transactionTemplate.execute(status -> {
+			Member member = new Member("member6", 60, em.find(Team.class, teamAId));
+			em.persist(member);
+			return member.getId();
+		});
+		transactionTemplate.executeWithoutResult(status -> em.find(Member.class, memberId).changeTeam(em.find(Team.class, teamBId)));
+		transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamBId).setName("teamA"));
+		transactionTemplate.executeWithoutResult(status -> em.remove(em.find(Member.class, memberId)));
+		transactionTemplate.executeWithoutResult(status -> em.persist(new Member("member7", 70, em.find(Team.class, teamBId))));
+
+		assertThat(memberRepository.search(condition)).extracting("userName", "age")
+				.containsExactly(tuple("member1", 10), tuple("member2", 20), tuple("member3", 30),
+						tuple("member4", 40), tuple("member7", 70));
+	}
+
+	@Test
+	public void writeTransactionBypassesSnapshotTest() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUserName("member8");
+		assertThat(memberRepository.search(condition)).isEmpty();
+
+		//커밋 전 변경은 스냅샷에 없으므로 쓰기 트랜잭션 안에서는 DB 에서 읽는다
+		List<MemberTeamDto> inTransaction = transactionTemplate.execute(status -> {
+			status.setRollbackOnly();
+			em.persist(new Member("member8", 80));
+			em.flush();
+			return memberRepository.search(condition);
+		});
+		assertThat(inTransaction).extracting("userName").containsExactly("member8");
+		assertThat(memberRepository.search(condition)).isEmpty();
+	}
+
+	@Test
+	public void compactAfterChurnTest() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		assertThat(memberRepository.search(condition)).hasSize(2);
+		
+		for (int i = 0; i < 20; i++) {
+			Member churn = new Member("churn" + i, i);
+			transactionTemplate.executeWithoutResult(status -> {
+				churn.setTeam(em.find(Team.class, teamAId));
+				em.persist(churn);
+			});
+			transactionTemplate.executeWithoutResult(status -> em.remove(em.find(Member.class, churn.getId())));
+		}
+		
+		//지운 행과 그 이름이 살아 있는 행 수에 맞춰 정리된다
+		assertThat(snapshot.rowCount()).isLessThanOrEqualTo(5 * 2);
+		assertThat(snapshot.userNameCount()).isLessThanOrEqualTo(5 * 2);
+		assertThat(memberRepository.search(condition)).extracting("userName").containsExactly("member1", "member2");
+		assertThat(memberRepository.search(new MemberSearchCondition())).extracting("userName")
+				.containsExactly("member1", "member2", "member3", "member4", "member5");
+	}
+}
@@ -4,9 +4,12 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.List;
 
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
 import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
@@ -15,6 +18,7 @@ import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
 
+@ActiveProfiles("test")
 @SpringBootTest
 @Transactional
 public class MemberJpaRepositoryTest {
@@ -48,6 +52,36 @@ public class MemberJpaRepositoryTest {
 		assertThat(findMemberByUserName).containsExactly(member);
 	}
 	
+	@Test
+	public void readOnlyLookupTest() {
+		memberJpaRepository.save(new Member("member1", 10));
+		em.flush();
+		em.clear();
+		
+		Session session = em.unwrap(Session.class);
+		List<Member> findAll = memberJpaRepository.findAllReadOnly();
+		assertThat(findAll).allMatch(session::isReadOnly);
+		
+		Member findMember = memberJpaRepository.findReadOnlyByUserName("member1").get(0);
+		assertThat(session.isReadOnly(findMember)).isTrue();
+		
+		//스냅샷이 없으므로 변경은 flush 되지 않는다
+		findMember.setAge(20);
+		em.flush();
+		em.clear();
+		assertThat(memberJpaRepository.findById(findMember.getId()).get().getAge()).isEqualTo(10);
+		em.clear();
+		
+		//기본 조회는 그대로 변경을 반영한다
+		Member managed = memberJpaRepository.findByUserName("member1").get(0);
+		assertThat(session.isReadOnly(managed)).isFalse();
+		assertThat(memberJpaRepository.findAll_Querydsl()).noneMatch(session::isReadOnly);
+		managed.setAge(30);
+		em.flush();
+		em.clear();
+		assertThat(memberJpaRepository.findById(managed.getId()).get().getAge()).isEqualTo(30);
+	}
+	
 	@Test
 	public void searchTest() {
 		Team teamA = new Team("teamA");
@@ -73,4 +107,29 @@ public class MemberJpaRepositoryTest {
 		assertThat(result).extracting("userName").containsExactly("member4");
 		
 	}
+	
+	@Test
+	public void findAllByIdsTest() {
+		for (int i = 0; i < 10; i++) {
+			memberJpaRepository.save(new Member("member" + i, i));
+		}
+		em.flush();
+		em.clear();
+		List<Long> ids = memberJpaRepository.findAll().stream().map(Member::getId).toList();
+		em.clear();
+		Member cached = em.find(Member.class, ids.get(9));
+		
+		Statistics statistics = em.unwrap(Session.class).getSessionFactory().getStatistics();
+		long before = statistics.getPrepareStatementCount();
+		List<Member> result = memberJpaRepository.findAllByIds(List.of(ids.get(9), ids.get(3), -1L, ids.get(0), ids.get(7), ids.get(3)));
+		
+		//영속성 컨텍스트에 없는 것만 한 번에 읽고, 요청한 순서대로 돌려준다
+		assertThat(statistics.getPrepareStatementCount() - before).isEqualTo(1);
+		assertThat(result).extracting("userName").containsExactly("member9", "member3", "member0", "member7", "member3");
+		assertThat(result.get(0)).isSameAs(cached);
+		
+		before = statistics.getPrepareStatementCount();
+		assertThat(memberJpaRepository.findAllByIds(List.of(ids.get(7), ids.get(9)))).extracting("userName").containsExactly("member7", "member9");
+		assertThat(statistics.getPrepareStatementCount() - before).isZero();
+	}
 }
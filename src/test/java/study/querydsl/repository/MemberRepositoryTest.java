@@ -1,20 +1,30 @@
 package study.querydsl.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
 
 import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
+import study.querydsl.dto.MemberCursorResult;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
 
+@ActiveProfiles("test")
 @SpringBootTest
 @Transactional
 public class MemberRepositoryTest {
@@ -36,6 +46,35 @@ public class MemberRepositoryTest {
 		assertThat(findMemberByUserName).containsExactly(member);
 	}
 	
+	@Test
+	public void readOnlyLookupTest() {
+		memberRepository.save(new Member("member1", 10));
+		em.flush();
+		em.clear();
+		
+		Session session = em.unwrap(Session.class);
+		List<Member> findAll = memberRepository.findAllReadOnly();
+		assertThat(findAll).allMatch(session::isReadOnly);
+		
+		Member findMember = memberRepository.findReadOnlyByUserName("member1").get(0);
+		assertThat(session.isReadOnly(findMember)).isTrue();
+		
+		//스냅샷이 없으므로 변경은 flush 되지 않는다
+		findMember.setAge(20);
+		em.flush();
+		em.clear();
+		assertThat(memberRepository.findById(findMember.getId()).get().getAge()).isEqualTo(10);
+		em.clear();
+		
+		//기본 조회는 그대로 변경을 반영한다
+		Member managed = memberRepository.findByUserName("member1").get(0);
+		assertThat(session.isReadOnly(managed)).isFalse();
+		managed.setAge(30);
+		em.flush();
+		em.clear();
+		assertThat(memberRepository.findById(managed.getId()).get().getAge()).isEqualTo(30);
+	}
+	
 	@Test
 	public void searchTest() {
 		Team teamA = new Team("teamA");
@@ -61,4 +100,158 @@ public class MemberRepositoryTest {
 		assertThat(result).extracting("userName").containsExactly("member4");
 		
 	}
+	
+	@Test
+	public void searchPageTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+		Member member1 = new Member("member1", 10, teamA);
+		Member member2 = new Member("member2", 20, teamA);
+		Member member3 = new Member("member3", 30, teamB);
+		Member member4 = new Member("member4", 40, teamB);
+		em.persist(member1);
+		em.persist(member2);
+		em.persist(member3);
+		em.persist(member4);
+		
+		MemberSearchCondition condition = new MemberSearchCondition();
+		PageRequest pageRequest = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "age"));
+		
+		Page<MemberTeamDto> result = memberRepository.searchpageComplex(condition, pageRequest);
+		
+		assertThat(result.getTotalElements()).isEqualTo(4);
+		assertThat(result.getContent()).extracting("userName").containsExactly("member2", "member1");
+	}
+	
+	@Test
+	public void searchPageMaxSizeTest() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		PageRequest pageRequest = PageRequest.of(0, 10_000, Sort.by("unknownProperty"));
+		
+		Page<MemberTeamDto> result = memberRepository.searchpageComplex(condition, pageRequest);
+		
+		assertThat(result.getSize()).isEqualTo(MemberRepositoryImpl.MAX_PAGE_SIZE);
+	}
+	
+	@Test
+	public void searchPageCountTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30, teamB));
+		em.persist(new Member("member4", 40, teamB));
+		
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamB");
+		
+		Page<MemberTeamDto> firstPage = memberRepository.searchpageComplex(condition, PageRequest.of(0, 1));
+		assertThat(firstPage.getTotalElements()).isEqualTo(2);
+		assertThat(firstPage.getContent()).extracting("userName").containsExactly("member3");
+		
+		Page<MemberTeamDto> lastPage = memberRepository.searchpageComplex(condition, PageRequest.of(1, 5));
+		assertThat(lastPage.getTotalElements()).isEqualTo(2);
+		assertThat(lastPage.getContent()).isEmpty();
+	}
+	
+	@Test
+	public void searchAfterTest() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+		for(int i = 0; i < 5; i++) {
+			em.persist(new Member("member" + i, i, teamA));
+		}
+		
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		
+		MemberCursorResult first = memberRepository.searchAfter(condition, null, 2);
+		assertThat(first.getContent()).extracting("userName").containsExactly("member0", "member1");
+		assertThat(first.getNextCursor()).isNotNull();
+		
+		MemberCursorResult second = memberRepository.searchAfter(condition, first.getNextCursor(), 2);
+		assertThat(second.getContent()).extracting("userName").containsExactly("member2", "member3");
+		
+		MemberCursorResult last = memberRepository.searchAfter(condition, second.getNextCursor(), 2);
+		assertThat(last.getContent()).extracting("userName").containsExactly("member4");
+		assertThat(last.getNextCursor()).isNull();
+	}
+	
+	@Test
+	public void searchAfterSortTest() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+		String[] names = {"b", null, "a", "b", "c", null};
+		int[] ages = {10, 20, 10, 30, 20, 10};
+		for(int i = 0; i < names.length; i++) {
+			em.persist(new Member(names[i], ages[i], teamA));
+		}
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		List<MemberTeamDto> all = memberRepository.search(condition);
+		
+		//정렬 키가 같은 행은 id 로 이어지고, null 은 오름차순에서 앞, 내림차순에서 뒤에 온다
+		Comparator<MemberTeamDto> byId = Comparator.comparing(MemberTeamDto::getMemberId);
+		assertThat(searchAllPages(condition, Sort.by(Sort.Order.desc("age"))))
+				.isEqualTo(sorted(all, Comparator.comparing(MemberTeamDto::getAge).reversed().thenComparing(byId)));
+		assertThat(searchAllPages(condition, Sort.by(Sort.Order.asc("userName"))))
+				.isEqualTo(sorted(all, Comparator.comparing(MemberTeamDto::getUserName, 
+						Comparator.nullsFirst(Comparator.<String>naturalOrder())).thenComparing(byId)));
+		assertThat(searchAllPages(condition, Sort.by(Sort.Order.desc("userName"))))
+				.isEqualTo(sorted(all, Comparator.comparing(MemberTeamDto::getUserName, 
+						Comparator.nullsLast(Comparator.<String>reverseOrder())).thenComparing(byId)));
+		
+		String ageCursor = memberRepository.searchAfter(condition, Sort.by("age"), null, 2).getNextCursor();
+		assertThatThrownBy(() -> memberRepository.searchAfter(condition, Sort.by(Sort.Order.desc("age")), ageCursor, 2))
+				.isInstanceOf(InvalidCursorException.class);
+		assertThatThrownBy(() -> memberRepository.searchAfter(condition, "<script>", 2))
+				.isInstanceOf(InvalidCursorException.class);
+	}
+	
+	private List<MemberTeamDto> searchAllPages(MemberSearchCondition condition, Sort sort) {
+		List<MemberTeamDto> result = new ArrayList<>();
+		String cursor = null;
+		do {
+			MemberCursorResult page = memberRepository.searchAfter(condition, sort, cursor, 2);
+			result.addAll(page.getContent());
+			cursor = page.getNextCursor();
+		} while (cursor != null);
+		return result;
+	}
+	
+	private List<MemberTeamDto> sorted(List<MemberTeamDto> members, Comparator<MemberTeamDto> comparator) {
+		return members.stream().sorted(comparator).toList();
+	}
+	
+	@Test
+	public void reassignTeamTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+		Member member1 = new Member("member1", 10, teamA);
+		Member member2 = new Member("member2", 20, teamA);
+		Member member3 = new Member("member3", 30, teamA);
+		em.persist(member1);
+		em.persist(member2);
+		em.persist(member3);
+		
+		long count = memberRepository.reassignTeam(List.of(member1.getId(), member2.getId()), teamB.getId());
+		
+		assertThat(count).isEqualTo(2);
+		assertThat(em.contains(member1)).isFalse();
+		//옮기지 않은 엔티티는 영속성 컨텍스트에 그대로 남는다
+		assertThat(em.contains(member3)).isTrue();
+		assertThat(em.contains(teamA)).isTrue();
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamB");
+		assertThat(memberRepository.search(condition)).extracting("userName").containsExactly("member1", "member2");
+		
+		memberRepository.reassignTeam(List.of(member3.getId()), null);
+		assertThat(memberRepository.findById(member3.getId()).get().getTeam()).isNull();
+	}
 }
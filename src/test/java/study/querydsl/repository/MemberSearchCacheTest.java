@@ -0,0 +1,134 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import study.querydsl.datasource.ReplicaProperties;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.MemberBulkChangedEvent;
+
+//캐시는 커밋된 데이터만 다루므로 이 테스트는 트랜잭션을 직접 커밋하고 끝나면 지운다
+@ActiveProfiles("test")
+@SpringBootTest
+public class MemberSearchCacheTest {
+	@Autowired EntityManager em;
+	@Autowired TransactionTemplate transactionTemplate;
+	@Autowired MemberRepository memberRepository;
+	@Autowired MemberSearchCache searchCache;
+	@Autowired ApplicationEventPublisher eventPublisher;
+	
+	@BeforeEach
+	public void before() {
+		transactionTemplate.executeWithoutResult(status -> {
+			Team teamA = new Team("teamA");
+			em.persist(teamA);
+			em.persist(new Member("member1", 10, teamA));
+			em.persist(new Member("member2", 20, teamA));
+		});
+	}
+	
+	@AfterEach
+	public void after() {
+		transactionTemplate.executeWithoutResult(status -> {
+			em.createQuery("delete from Member").executeUpdate();
+			em.createQuery("delete from Team").executeUpdate();
+		});
+		searchCache.invalidateAll();
+	}
+	
+	@Test
+	public void memberChangeEvictsOnlyMatchingEntries() {
+		MemberSearchCondition teamA = new MemberSearchCondition();
+		teamA.setTeamName("teamA");
+		MemberSearchCondition member2 = new MemberSearchCondition();
+		member2.setUserName("member2");
+		memberRepository.search(teamA);
+		memberRepository.search(member2);
+		
+		transactionTemplate.executeWithoutResult(status -> {
+			Member member1 = memberRepository.findByUserName("member1").get(0);
+			member1.setAge(15);
+			//벌크 update 는 엔티티 이벤트를 남기지 않는다
+			em.createQuery("update Member m set m.age = 99 where m.userName = 'member2'").executeUpdate();
+		});
+		
+		List<MemberTeamDto> teamAResult = memberRepository.search(teamA);
+		assertThat(teamAResult).extracting("age").containsExactlyInAnyOrder(15, 99);
+		assertThat(memberRepository.search(member2)).extracting("age").containsExactly(20);
+		
+		eventPublisher.publishEvent(new MemberBulkChangedEvent());
+		assertThat(memberRepository.search(member2)).extracting("age").containsExactly(99);
+	}
+	
+	@Test
+	public void changeDuringLoadIsNotCachedTest() {
+		MemberSearchCache cache = new MemberSearchCache(new SimpleMeterRegistry(), true, 100, Duration.ofMinutes(1), 
+				new ReplicaProperties());
+		MemberSearchCondition condition = new MemberSearchCondition();
+		List<MemberTeamDto> result = List.of(new MemberTeamDto(1L, "member1", 10, null, null));
+		AtomicInteger loads = new AtomicInteger();
+		
+		//읽는 도중에 커밋된 변경이 지나가면 그 결과는 다음 검색에 쓰지 않는다
+		cache.search(condition, () -> {
+			loads.incrementAndGet();
+			cache.onMemberBulkChanged(new MemberBulkChangedEvent());
+			return result;
+		});
+		cache.search(condition, () -> {
+			loads.incrementAndGet();
+			return result;
+		});
+		assertThat(loads).hasValue(2);
+		
+		cache.search(condition, () -> {
+			loads.incrementAndGet();
+			return result;
+		});
+		assertThat(loads).hasValue(2);
+	}
+	
+	@Test
+	public void loadWithinReplicaLagIsNotCachedTest() throws Exception {
+		ReplicaProperties replicaProperties = new ReplicaProperties();
+		replicaProperties.getReplicas().add(new ReplicaProperties.Replica());
+		replicaProperties.setMaxLag(Duration.ofMillis(200));
+		MemberSearchCache cache = new MemberSearchCache(new SimpleMeterRegistry(), true, 100, Duration.ofMinutes(1), 
+				replicaProperties);
+		MemberSearchCondition condition = new MemberSearchCondition();
+		List<MemberTeamDto> result = List.of(new MemberTeamDto(1L, "member1", 10, null, null));
+		AtomicInteger loads = new AtomicInteger();
+		Supplier<List<MemberTeamDto>> loader = () -> {
+			loads.incrementAndGet();
+			return result;
+		};
+		
+		//변경 직후에는 복제본이 아직 따라오지 않았을 수 있으므로 저장하지 않는다
+		cache.onMemberBulkChanged(new MemberBulkChangedEvent());
+		cache.search(condition, loader);
+		cache.search(condition, loader);
+		assertThat(loads).hasValue(2);
+		
+		Thread.sleep(250);
+		cache.search(condition, loader);
+		cache.search(condition, loader);
+		assertThat(loads).hasValue(3);
+	}
+}
@@ -0,0 +1,130 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.event.MemberBulkChangedEvent;
+
+public class MemberSearchCoalescerTest {
+	SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	MemberSearchCoalescer coalescer = new MemberSearchCoalescer(meterRegistry, true);
+	ExecutorService executor = Executors.newFixedThreadPool(8);
+
+	@AfterEach
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void concurrentSearchesShareOneExecutionTest() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger executions = new AtomicInteger();
+		List<Future<List<String>>> results = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			//teamName 의 빈 문자열은 조건 없음과 같게 본다
+			MemberSearchCondition condition = condition(i % 2 == 0 ? "" : null);
+			results.add(executor.submit(() -> coalescer.execute("search", condition, null, () -> {
+				executions.incrementAndGet();
+				await(release);
+				return List.of("member1");
+			})));
+		}
+		waitUntil(() -> coalesced() == 7);
+		release.countDown();
+
+		for (Future<List<String>> result : results) {
+			assertThat(result.get(5, TimeUnit.SECONDS)).containsExactly("member1");
+		}
+		assertThat(executions).hasValue(1);
+		assertThat(meterRegistry.get("member.search.coalescing").tag("result", "executed").counter().count()).isEqualTo(1);
+
+		//끝난 실행은 기억하지 않는다
+		coalescer.execute("search", condition(null), null, () -> executions.incrementAndGet());
+		assertThat(executions).hasValue(2);
+	}
+
+	@Test
+	public void differentKeysRunSeparatelyTest() {
+		AtomicInteger executions = new AtomicInteger();
+		MemberSearchCondition condition = condition(null);
+		CountDownLatch release = new CountDownLatch(1);
+		Future<?> page0 = executor.submit(() -> coalescer.execute("searchPage", condition, PageRequest.of(0, 10), () -> {
+			executions.incrementAndGet();
+			return await(release);
+		}));
+		waitUntil(() -> executions.get() == 1);
+
+		coalescer.execute("searchPage", condition, PageRequest.of(1, 10), executions::incrementAndGet);
+		coalescer.execute("search", condition, null, executions::incrementAndGet);
+		release.countDown();
+
+		assertThat(executions).hasValue(3);
+		assertThat(page0).succeedsWithin(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	public void failureAndInvalidationTest() {
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger executions = new AtomicInteger();
+		Future<Object> leader = executor.submit(() -> coalescer.execute("search", condition(null), null, () -> {
+			executions.incrementAndGet();
+			await(release);
+			throw new IllegalStateException("boom");
+		}));
+		waitUntil(() -> executions.get() == 1);
+		Future<Object> follower = executor.submit(() -> coalescer.execute("search", condition(null), null, () -> "unused"));
+		waitUntil(() -> coalesced() == 1);
+
+		//커밋된 변경 뒤에 들어온 요청은 이전 실행에 붙지 않는다
+		coalescer.onMemberBulkChanged(new MemberBulkChangedEvent());
+		assertThat(coalescer.execute("search", condition(null), null, () -> "fresh")).isEqualTo("fresh");
+		release.countDown();
+
+		assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+	}
+
+	private MemberSearchCondition condition(String teamName) {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName(teamName);
+		condition.setAgeGoe(10);
+		return condition;
+	}
+
+	private double coalesced() {
+		return meterRegistry.get("member.search.coalescing").tag("result", "coalesced").counter().count();
+	}
+
+	private static Object await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return null;
+	}
+
+	private static void waitUntil(BooleanSupplier condition) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("timed out").isLessThan(deadline);
+			Thread.onSpinWait();
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.MemberBulkChangedEvent;
+
+/**
+ * search 가 만드는 모든 조건 조합의 SQL 을 H2 EXPLAIN 으로 확인해서 member/team 전체 스캔이 없는지 본다.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+public class MemberSearchIndexTest {
+	@Autowired EntityManager em;
+	@Autowired EntityManagerFactory emf;
+	@Autowired TransactionTemplate transactionTemplate;
+	@Autowired ApplicationEventPublisher eventPublisher;
+	@Autowired TeamNameIndex teamNameIndex;
+	
+	List<Team> teams = new ArrayList<>();
+	
+	@BeforeEach
+	public void before() {
+		transactionTemplate.executeWithoutResult(status -> {
+			for (int i = 0; i < 10; i++) {
+				Team team = new Team("team" + i);
+				teams.add(team);
+				em.persist(team);
+			}
+			//같은 이름의 팀이 둘이면 teamId 로 바꾸지 못하고 team.name 조건으로 남는다
+			Team duplicate = new Team("team0");
+			em.persist(duplicate);
+			for (int i = 0; i < 1000; i++) {
+				em.persist(new Member("member" + i, i % 100, teams.get(i % 10)));
+			}
+			teams.add(duplicate);
+		});
+		eventPublisher.publishEvent(new MemberBulkChangedEvent());
+	}
+	
+	@AfterEach
+	public void after() {
+		//만든 팀의 member 부터 지우고 팀을 지운다
+		transactionTemplate.executeWithoutResult(status -> {
+			em.createQuery("delete from Member m where m.team in :teams")
+					.setParameter("teams", teams)
+					.executeUpdate();
+			em.createQuery("delete from Team t where t in :teams")
+					.setParameter("teams", teams)
+					.executeUpdate();
+		});
+		eventPublisher.publishEvent(new MemberBulkChangedEvent());
+	}
+	
+	@Test
+	public void everySearchShapeUsesIndex() {
+		List<String> statements = new ArrayList<>();
+		try (Session session = emf.unwrap(SessionFactory.class)
+				.withOptions()
+				.statementInspector(sql -> {
+					statements.add(sql);
+					return sql;
+				})
+				.openSession()) {
+			MemberSearchQueryCache searchQueryCache = new MemberSearchQueryCache(session, teamNameIndex, new SimpleMeterRegistry());
+			
+			List<String> sqls = new ArrayList<>();
+			for (String teamName : new String[] {null, "team1", "team0"}) {
+				for (int shape = 0; shape < 8; shape++) {
+					MemberSearchCondition condition = new MemberSearchCondition();
+					condition.setUserName((shape & 1) == 0 ? null : "member11");
+					condition.setTeamName(teamName);
+					condition.setAgeGoe((shape & 2) == 0 ? null : 10);
+					condition.setAgeLoe((shape & 4) == 0 ? null : 20);
+					if(teamName == null && shape == 0) {
+						//조건이 없으면 전체 조회다
+						continue;
+					}
+					statements.clear();
+					searchQueryCache.search(condition);
+					assertThat(statements).hasSize(1);
+					sqls.add(statements.get(0));
+				}
+			}
+			assertThat(sqls).hasSize(23).doesNotHaveDuplicates();
+			
+			for (String sql : sqls) {
+				String plan = session.doReturningWork(connection -> {
+					try (Statement statement = connection.createStatement();
+							ResultSet rs = statement.executeQuery("EXPLAIN " + sql)) {
+						rs.next();
+						return rs.getString(1);
+					}
+				});
+				assertThat(plan).as(sql).doesNotContain(".tableScan");
+			}
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@Transactional
+public class MemberSearchQueryCacheTest {
+	@Autowired EntityManager em;
+	@Autowired MemberSearchQueryCache searchQueryCache;
+	@Autowired MemberJpaRepository memberJpaRepository;
+	@Autowired MeterRegistry meterRegistry;
+	JPAQueryFactory queryFactory;
+	
+	@BeforeEach
+	public void before() {
+		queryFactory = new JPAQueryFactory(em);
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30, teamB));
+		em.persist(new Member("member4", 40, teamB));
+		em.persist(new Member("member5", 50));
+	}
+	
+	@Test
+	public void everyShapeMatchesQuerydsl() {
+		for(int shape = 0; shape < 16; shape++) {
+			MemberSearchCondition condition = new MemberSearchCondition();
+			condition.setUserName((shape & 1) == 0 ? null : "member3");
+			condition.setTeamName((shape & 2) == 0 ? null : "teamB");
+			condition.setAgeGoe((shape & 4) == 0 ? null : 20);
+			condition.setAgeLoe((shape & 8) == 0 ? null : 40);
+			
+			assertThat(searchQueryCache.search(condition))
+				.as("shape %d", shape)
+				.containsExactlyInAnyOrderElementsOf(searchByQuerydsl(condition));
+		}
+	}
+	
+	@Test
+	public void compiledQueryIsReused() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		searchQueryCache.search(condition);
+		double hits = meterRegistry.counter("member.search.compiled", "result", "hit").count();
+		
+		condition.setTeamName("teamB");
+		List<MemberTeamDto> result = searchQueryCache.search(condition);
+		
+		assertThat(result).extracting("userName").containsExactlyInAnyOrder("member3", "member4");
+		assertThat(meterRegistry.counter("member.search.compiled", "result", "hit").count()).isEqualTo(hits + 1);
+	}
+	
+	@Test
+	public void builderSearchReusesCompiledQuery() {
+		for(int shape = 0; shape < 16; shape++) {
+			MemberSearchCondition condition = new MemberSearchCondition();
+			condition.setUserName((shape & 1) == 0 ? null : "member3");
+			condition.setTeamName((shape & 2) == 0 ? null : "teamB");
+			condition.setAgeGoe((shape & 4) == 0 ? null : 20);
+			condition.setAgeLoe((shape & 8) == 0 ? null : 40);
+			
+			assertThat(memberJpaRepository.searchBybuilder(condition))
+				.as("shape %d", shape)
+				.containsExactlyInAnyOrderElementsOf(searchByQuerydsl(condition));
+		}
+		
+		//값만 다르면 BooleanBuilder 로 만든 조건도 같은 JPQL 을 쓴다
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		condition.setAgeGoe(5);
+		double hits = meterRegistry.counter("member.search.compiled", "result", "hit").count();
+		
+		assertThat(memberJpaRepository.searchBybuilder(condition)).extracting("userName")
+				.containsExactlyInAnyOrder("member1", "member2");
+		assertThat(meterRegistry.counter("member.search.compiled", "result", "hit").count()).isEqualTo(hits + 1);
+	}
+	
+	private List<MemberTeamDto> searchByQuerydsl(MemberSearchCondition condition) {
+		BooleanBuilder builder = new BooleanBuilder();
+		if(condition.getUserName() != null) {
+			builder.and(member.userName.eq(condition.getUserName()));
+		}
+		if(condition.getTeamName() != null) {
+			builder.and(team.name.eq(condition.getTeamName()));
+		}
+		if(condition.getAgeGoe() != null) {
+			builder.and(member.age.goe(condition.getAgeGoe()));
+		}
+		if(condition.getAgeLoe() != null) {
+			builder.and(member.age.loe(condition.getAgeLoe()));
+		}
+		return queryFactory
+				.select(new QMemberTeamDto(member.id, member.userName, member.age, team.id, team.name))
+				.from(member)
+				.leftJoin(member.team, team)
+				.where(builder)
+				.fetch();
+	}
+}
@@ -0,0 +1,83 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Optional;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import study.querydsl.entity.Team;
+
+@ActiveProfiles("test")
+@SpringBootTest
+public class TeamCacheTest {
+	@Autowired EntityManager em;
+	@Autowired EntityManagerFactory emf;
+	@Autowired TransactionTemplate transactionTemplate;
+	@Autowired TeamRepository teamRepository;
+	@Autowired MeterRegistry meterRegistry;
+	
+	Statistics statistics;
+	Long teamId;
+	
+	@BeforeEach
+	public void before() {
+		statistics = emf.unwrap(SessionFactory.class).getStatistics();
+		teamId = transactionTemplate.execute(status -> {
+			Team team = new Team("teamA");
+			em.persist(team);
+			return team.getId();
+		});
+		statistics.clear();
+	}
+	
+	@AfterEach
+	public void after() {
+		//다른 테스트나 local 데이터의 team 은 member 가 참조하고 있을 수 있으므로 만든 것만 지운다
+		transactionTemplate.executeWithoutResult(status -> {
+			em.createQuery("delete from Team t where t.id = :teamId")
+					.setParameter("teamId", teamId)
+					.executeUpdate();
+		});
+	}
+	
+	@Test
+	public void entityCacheTest() {
+		Team team = transactionTemplate.execute(status -> em.find(Team.class, teamId));
+		
+		assertThat(team.getName()).isEqualTo("teamA");
+		assertThat(statistics.getDomainDataRegionStatistics("team").getHitCount()).isEqualTo(1);
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+		assertThat(meterRegistry.get("hibernate.second.level.cache.requests")
+				.tag("region", "team")
+				.tag("result", "hit")
+				.functionCounter().count()).isEqualTo(1);
+	}
+	
+	@Test
+	public void queryCacheTest() {
+		transactionTemplate.execute(status -> teamRepository.findByName("teamA"));
+		Team team = transactionTemplate.execute(status -> teamRepository.findByName("teamA").get());
+		
+		assertThat(team.getId()).isEqualTo(teamId);
+		assertThat(statistics.getQueryCacheMissCount()).isEqualTo(1);
+		assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		
+		//team 이 바뀌면 캐시된 쿼리 결과는 다시 읽는다
+		transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamId).setName("teamB"));
+		Optional<Team> renamed = transactionTemplate.execute(status -> teamRepository.findByName("teamA"));
+		assertThat(renamed).isEmpty();
+	}
+}
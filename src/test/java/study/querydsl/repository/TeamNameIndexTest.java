@@ -0,0 +1,112 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.MemberCursorResult;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.event.MemberBulkChangedEvent;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = "member.search.cache.enabled=false")
+public class TeamNameIndexTest {
+	@Autowired EntityManager em;
+	@Autowired TransactionTemplate transactionTemplate;
+	@Autowired ApplicationEventPublisher eventPublisher;
+	@Autowired TeamNameIndex teamNameIndex;
+	@Autowired MemberRepository memberRepository;
+	@Autowired MemberJpaRepository memberJpaRepository;
+	
+	Long teamAId;
+	
+	@BeforeEach
+	public void before() {
+		eventPublisher.publishEvent(new MemberBulkChangedEvent());
+		teamAId = transactionTemplate.execute(status -> {
+			Team teamA = new Team("teamA");
+			Team teamB = new Team("teamB");
+			em.persist(teamA);
+			em.persist(teamB);
+			em.persist(new Member("member1", 10, teamA));
+			em.persist(new Member("member2", 20, teamA));
+			em.persist(new Member("member3", 30, teamB));
+			em.persist(new Member("member4", 40));
+			return teamA.getId();
+		});
+	}
+	
+	@AfterEach
+	public void after() {
+		transactionTemplate.executeWithoutResult(status -> {
+			em.createQuery("delete from Member").executeUpdate();
+			em.createQuery("delete from Team").executeUpdate();
+		});
+		eventPublisher.publishEvent(new MemberBulkChangedEvent());
+	}
+	
+	@Test
+	public void teamIdOfTest() {
+		assertThat(teamNameIndex.teamIdOf("teamA")).contains(teamAId);
+		assertThat(teamNameIndex.teamIdOf("teamC")).isEmpty();
+		
+		//쓰기 트랜잭션 안에서는 커밋 전 팀이 보여야 하므로 바꾸지 않는다
+		Optional<Long> inTransaction = transactionTemplate.execute(status -> teamNameIndex.teamIdOf("teamA"));
+		assertThat(inTransaction).isEmpty();
+	}
+	
+	@Test
+	public void teamChangeRefreshesIndexTest() {
+		assertThat(teamNameIndex.teamIdOf("teamA")).contains(teamAId);
+		
+		transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamAId).setName("teamC"));
+		assertThat(teamNameIndex.teamIdOf("teamA")).isEmpty();
+		assertThat(teamNameIndex.teamIdOf("teamC")).contains(teamAId);
+		
+		//같은 이름이 둘이면 team.name 조건으로 돌아간다
+		transactionTemplate.executeWithoutResult(status -> em.persist(new Team("teamC")));
+		assertThat(teamNameIndex.teamIdOf("teamC")).isEmpty();
+		
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamC");
+		assertThat(memberRepository.search(condition)).extracting("userName").containsExactlyInAnyOrder("member1", "member2");
+	}
+	
+	@Test
+	public void rewrittenSearchTest() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		condition.setAgeGoe(15);
+		
+		List<MemberTeamDto> result = memberRepository.search(condition);
+		Page<MemberTeamDto> page = memberRepository.searchpageComplex(condition, PageRequest.of(0, 1));
+		MemberCursorResult cursorResult = memberRepository.searchAfter(condition, null, 10);
+		List<MemberTeamDto> streamed = transactionTemplate.execute(status -> {
+			status.setRollbackOnly();
+			return memberJpaRepository.searchStream(condition, 10).toList();
+		});
+		
+		assertThat(result).extracting("userName", "teamName").containsExactly(tuple("member2", "teamA"));
+		assertThat(page.getContent()).isEqualTo(result);
+		assertThat(page.getTotalElements()).isEqualTo(1);
+		assertThat(cursorResult.getContent()).isEqualTo(result);
+		assertThat(streamed).isEqualTo(result);
+	}
+}
@@ -0,0 +1,139 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.transaction.Transactional;
+import study.querydsl.dto.TeamRosterDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@Transactional
+public class TeamRepositoryTest {
+	@Autowired EntityManager em;
+	@Autowired EntityManagerFactory emf;
+	@Autowired TeamRepository teamRepository;
+	@Autowired MemberRepository memberRepository;
+	
+	Statistics statistics;
+	
+	@BeforeEach
+	public void before() {
+		statistics = emf.unwrap(SessionFactory.class).getStatistics();
+	}
+	
+	@Test
+	public void findRostersTest() {
+		saveTeams(2);
+		em.persist(new Team("emptyTeam"));
+		em.flush();
+		em.clear();
+		
+		List<TeamRosterDto> rosters = teamRepository.findRosters(PageRequest.of(0, 10)).getContent();
+		
+		assertThat(rosters).extracting("teamName").containsExactly("team0", "team1", "emptyTeam");
+		assertThat(rosters.get(0).getMembers()).extracting("userName").containsExactly("member0-0", "member0-1", "member0-2");
+		assertThat(rosters.get(0).getMembers()).extracting("age").containsExactly(0, 1, 2);
+		assertThat(rosters.get(0).getMemberCount()).isEqualTo(3);
+		assertThat(rosters.get(2).getMembers()).isEmpty();
+		assertThat(rosters.get(2).getMemberCount()).isZero();
+	}
+	
+	@Test
+	public void rosterMembersPerTeamLimitTest() {
+		Team bigTeam = new Team("bigTeam");
+		em.persist(bigTeam);
+		for (int i = 0; i < TeamRepositoryImpl.MAX_MEMBERS_PER_TEAM + 5; i++) {
+			em.persist(new Member("member" + i, i, bigTeam));
+		}
+		saveTeams(1);
+		em.flush();
+		em.clear();
+		
+		//큰 팀은 앞의 MAX_MEMBERS_PER_TEAM 명만 싣고 전체 수는 memberCount 로 알린다
+		List<TeamRosterDto> rosters = teamRepository.findRosters(PageRequest.of(0, 10)).getContent();
+		
+		assertThat(rosters).extracting("teamName").containsExactly("bigTeam", "team0");
+		assertThat(rosters.get(0).getMembers()).hasSize(TeamRepositoryImpl.MAX_MEMBERS_PER_TEAM);
+		assertThat(rosters.get(0).getMembers().get(0).getUserName()).isEqualTo("member0");
+		assertThat(rosters.get(0).getMemberCount()).isEqualTo(TeamRepositoryImpl.MAX_MEMBERS_PER_TEAM + 5);
+		assertThat(rosters.get(1).getMembers()).hasSize(3);
+	}
+	
+	@Test
+	public void findRostersPageTest() {
+		saveTeams(5);
+		em.flush();
+		em.clear();
+		
+		//페이지는 팀 단위라 경계에서도 팀의 회원이 잘리지 않는다
+		Page<TeamRosterDto> page = teamRepository.findRosters(PageRequest.of(1, 2));
+		
+		assertThat(page.getContent()).extracting("teamName").containsExactly("team2", "team3");
+		assertThat(page.getContent()).allSatisfy(roster -> assertThat(roster.getMembers()).hasSize(3));
+		assertThat(page.getTotalElements()).isEqualTo(5);
+		assertThat(teamRepository.findRosters(PageRequest.of(0, 1000)).getSize()).isEqualTo(MemberRepositoryImpl.MAX_PAGE_SIZE);
+	}
+	
+	@Test
+	public void rosterStatementCountTest() {
+		assertThat(rosterStatements(2)).isEqualTo(2);
+		assertThat(rosterStatements(20)).isEqualTo(2);
+	}
+	
+	@Test
+	public void batchFetchTest() {
+		saveTeams(20);
+		em.flush();
+		em.clear();
+		
+		//member -> team, team -> members 를 따라가도 default_batch_fetch_size 단위로 한 번씩만 더 읽는다
+		statistics.clear();
+		List<Member> members = memberRepository.findAll();
+		members.forEach(member -> member.getTeam().getName());
+		assertThat(members).hasSize(60);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+		
+		em.clear();
+		statistics.clear();
+		List<Team> teams = teamRepository.findAll();
+		int memberCount = teams.stream().mapToInt(team -> team.getMembers().size()).sum();
+		assertThat(memberCount).isEqualTo(60);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+	
+	private long rosterStatements(int teamCount) {
+		saveTeams(teamCount);
+		em.flush();
+		em.clear();
+		statistics.clear();
+		//페이지보다 팀이 적으면 count 없이 팀, 회원 두 번만 읽는다
+		assertThat(teamRepository.findRosters(PageRequest.of(0, 100)).getContent()).hasSizeGreaterThanOrEqualTo(teamCount);
+		return statistics.getPrepareStatementCount();
+	}
+
+	private void saveTeams(int teamCount) {
+		for (int i = 0; i < teamCount; i++) {
+			Team team = new Team("team" + i);
+			em.persist(team);
+			for (int j = 0; j < 3; j++) {
+				em.persist(new Member("member" + i + "-" + j, j, team));
+			}
+		}
+	}
+}
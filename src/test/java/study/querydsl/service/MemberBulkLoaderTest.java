@@ -0,0 +1,65 @@
+package study.querydsl.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.BulkLoadResult;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {"member.bulk-load.batch-size=100", "member.bulk-load.commit-interval=1000"})
+public class MemberBulkLoaderTest {
+	@Autowired EntityManager em;
+	@Autowired TransactionTemplate transactionTemplate;
+	@Autowired MemberBulkLoader memberBulkLoader;
+	
+	@AfterEach
+	public void after() {
+		transactionTemplate.executeWithoutResult(status -> {
+			em.createQuery("delete from Member").executeUpdate();
+			em.createQuery("delete from Team").executeUpdate();
+		});
+	}
+	
+	@Test
+	public void loadTest() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		Stream<Member> members = IntStream.range(0, 2500).mapToObj(i -> {
+			Member member = new Member("member" + i, i % 100);
+			member.setTeam(i % 2 == 0 ? teamA : teamB);
+			return member;
+		});
+		
+		BulkLoadResult result = memberBulkLoader.load(Stream.concat(Stream.of(teamA, teamB), members));
+		
+		assertThat(result.rows()).isEqualTo(2502);
+		Long teamAMembers = transactionTemplate.execute(status -> em
+				.createQuery("select count(m) from Member m where m.team.name = 'teamA'", Long.class)
+				.getSingleResult());
+		assertThat(teamAMembers).isEqualTo(1250);
+	}
+	
+	@Test
+	public void rejectsOuterTransactionTest() {
+		assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(
+				status -> memberBulkLoader.load(Stream.of(new Team("teamA")))))
+				.isInstanceOf(IllegalStateException.class);
+		Long teams = transactionTemplate.execute(status -> em
+				.createQuery("select count(t) from Team t", Long.class)
+				.getSingleResult());
+		assertThat(teams).isZero();
+	}
+}
@@ -0,0 +1,109 @@
+package study.querydsl.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import study.querydsl.dto.MemberExportResult;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {"member.export.fetch-size=50", "member.export.checkpoint-interval=100"})
+public class MemberExporterTest {
+	@Autowired EntityManager em;
+	@Autowired TransactionTemplate transactionTemplate;
+	@Autowired MemberExporter memberExporter;
+	
+	@TempDir Path dir;
+	
+	@BeforeEach
+	public void before() {
+		transactionTemplate.executeWithoutResult(status -> {
+			Team teamA = new Team("teamA");
+			em.persist(teamA);
+			for (int i = 0; i < 250; i++) {
+				Member member = new Member(i == 0 ? "member,\"0\"" : "member" + i, i % 100);
+				if(i % 5 != 0) {
+					member.setTeam(teamA);
+				}
+				em.persist(member);
+			}
+		});
+	}
+	
+	@AfterEach
+	public void after() {
+		transactionTemplate.executeWithoutResult(status -> {
+			em.createQuery("delete from Member").executeUpdate();
+			em.createQuery("delete from Team").executeUpdate();
+		});
+	}
+	
+	@Test
+	public void exportTest() throws IOException {
+		Path target = dir.resolve("members.csv");
+		
+		MemberExportResult result = memberExporter.export(target, false);
+		
+		assertThat(result.rows()).isEqualTo(250);
+		List<String> lines = Files.readAllLines(target);
+		assertThat(lines).hasSize(251);
+		assertThat(lines.get(0)).isEqualTo("member_id,user_name,age,team_id,team_name");
+		assertThat(lines.get(1)).endsWith(",\"member,\"\"0\"\"\",0,,");
+		assertThat(lines.get(2)).matches("\\d+,member1,1,\\d+,teamA");
+		assertThat(lines.get(250)).startsWith(result.lastMemberId() + ",member249,49,");
+		assertThat(MemberExporter.checkpointOf(target)).doesNotExist();
+	}
+	
+	@Test
+	public void gzipExportTest() throws IOException {
+		Path plain = dir.resolve("members.csv");
+		Path gzip = dir.resolve("members.csv.gz");
+		
+		memberExporter.export(plain, false);
+		memberExporter.export(gzip, true);
+		
+		//checkpoint 마다 닫힌 gzip 멤버들이 이어져 하나로 읽힌다
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(gzip))) {
+			assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(Files.readString(plain));
+		}
+	}
+	
+	@Test
+	public void resumeTest() throws IOException {
+		Path full = dir.resolve("full.csv");
+		memberExporter.export(full, false);
+		List<String> lines = Files.readAllLines(full);
+		
+		//101번째 행을 쓰다가 멈춘 파일과 100번째 행까지의 checkpoint
+		Path target = dir.resolve("members.csv");
+		String exported = String.join("\n", lines.subList(0, 101)) + "\n";
+		long lastMemberId = Long.parseLong(lines.get(100).split(",")[0]);
+		Files.writeString(target, exported + lines.get(101).substring(0, 5));
+		new MemberExporter.Checkpoint(lastMemberId, exported.getBytes(StandardCharsets.UTF_8).length)
+				.write(MemberExporter.checkpointOf(target));
+		
+		MemberExportResult result = memberExporter.export(target, false);
+		
+		assertThat(result.rows()).isEqualTo(150);
+		assertThat(Files.readString(target)).isEqualTo(Files.readString(full));
+		assertThat(MemberExporter.checkpointOf(target)).doesNotExist();
+	}
+}
@@ -0,0 +1,70 @@
+package study.querydsl.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@Transactional
+public class MemberStreamServiceTest {
+	@Autowired EntityManager em;
+	@Autowired MemberStreamService memberStreamService;
+	
+	@Test
+	public void writeNdjsonTest() throws Exception {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.persist(new Member("member3", 30, teamB));
+		
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long count = memberStreamService.writeNdjson(condition, out);
+		
+		String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+		assertThat(count).isEqualTo(2);
+		assertThat(lines).hasSize(2);
+		assertThat(lines[0]).contains("\"userName\":\"member1\"", "\"teamName\":\"teamA\"");
+		assertThat(lines[1]).contains("\"userName\":\"member2\"");
+	}
+	
+	@Test
+	public void ndjsonBytesTest() throws Exception {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+		Member member1 = new Member("member1", 10, teamA);
+		Member member2 = new Member("member2", 20, teamA);
+		Member member3 = new Member("member3", 30);
+		em.persist(member1);
+		em.persist(member2);
+		em.persist(member3);
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		memberStreamService.writeNdjson(new MemberSearchCondition(), out);
+		
+		//줄 앞에 구분자가 붙지 않고 줄마다 \n 으로 끝나야 한다
+		String expected = 
+				"{\"memberId\":" + member1.getId() + ",\"userName\":\"member1\",\"age\":10,\"teamId\":" + teamA.getId() + ",\"teamName\":\"teamA\"}\n"
+				+ "{\"memberId\":" + member2.getId() + ",\"userName\":\"member2\",\"age\":20,\"teamId\":" + teamA.getId() + ",\"teamName\":\"teamA\"}\n"
+				+ "{\"memberId\":" + member3.getId() + ",\"userName\":\"member3\",\"age\":30,\"teamId\":null,\"teamName\":null}\n";
+		assertThat(out.toByteArray()).isEqualTo(expected.getBytes(StandardCharsets.UTF_8));
+	}
+}
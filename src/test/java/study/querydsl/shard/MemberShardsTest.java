@@ -0,0 +1,222 @@
+package study.querydsl.shard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.TeamRosterDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+import study.querydsl.event.MemberBulkChangedEvent;
+import study.querydsl.repository.MemberBulkRepository;
+import study.querydsl.repository.MemberColumnarSnapshot;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.TeamRepository;
+import study.querydsl.service.MemberBulkLoader;
+import study.querydsl.service.MemberExporter;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+		"member.shard.databases[0].url=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1",
+		"member.shard.databases[1].url=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1"
+})
+public class MemberShardsTest {
+	@Autowired EntityManager em;
+	@Autowired TransactionTemplate transactionTemplate;
+	@Autowired ApplicationEventPublisher eventPublisher;
+	@Autowired MemberShards shards;
+	@Autowired MemberRepository memberRepository;
+	@Autowired MemberJpaRepository memberJpaRepository;
+	@Autowired TeamRepository teamRepository;
+	@Autowired MemberBulkRepository memberBulkRepository;
+	@Autowired MemberBulkLoader memberBulkLoader;
+	@Autowired MemberExporter memberExporter;
+	@Autowired MemberColumnarSnapshot snapshot;
+
+	@TempDir Path dir;
+
+	List<Team> teams;
+
+	@BeforeEach
+	public void before() {
+		eventPublisher.publishEvent(new MemberBulkChangedEvent());
+		teams = transactionTemplate.execute(status -> {
+			List<Team> created = new ArrayList<>(List.of(new Team("teamA"), new Team("teamB"), new Team("teamC")));
+			created.forEach(em::persist);
+			return created;
+		});
+		for (int i = 0; i < 12; i++) {
+			shards.save(new Member("member" + i, i % 5 * 10, teams.get(i % 3)));
+		}
+		shards.save(new Member("member12", 20));
+	}
+
+	@AfterEach
+	public void after() {
+		for (EntityManagerFactory shard : shards.shardsFor(null)) {
+			EntityManager shardEm = shard.createEntityManager();
+			shardEm.getTransaction().begin();
+			shardEm.createQuery("delete from Member").executeUpdate();
+			shardEm.getTransaction().commit();
+			shardEm.close();
+		}
+		transactionTemplate.executeWithoutResult(status -> em.createQuery("delete from Team t where t in :teams")
+				.setParameter("teams", teams)
+				.executeUpdate());
+		eventPublisher.publishEvent(new MemberBulkChangedEvent());
+	}
+
+	@Test
+	public void partitionByTeamTest() {
+		List<Long> counts = new ArrayList<>();
+		for (EntityManagerFactory shard : shards.shardsFor(null)) {
+			EntityManager shardEm = shard.createEntityManager();
+			counts.add(shardEm.createQuery("select count(m) from Member m", Long.class).getSingleResult());
+			shardEm.close();
+		}
+		assertThat(counts).hasSize(2).allMatch(count -> count > 0);
+		assertThat(counts.stream().mapToLong(Long::longValue).sum()).isEqualTo(13);
+		assertThat(memberRepository.count()).isZero();
+	}
+
+	@Test
+	public void scatterGatherSearchTest() {
+		List<MemberTeamDto> all = memberRepository.search(new MemberSearchCondition());
+		assertThat(all).hasSize(13).isSortedAccordingTo(Comparator.comparing(MemberTeamDto::getMemberId));
+		assertThat(all).extracting(MemberTeamDto::getMemberId).doesNotHaveDuplicates();
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamB");
+		condition.setAgeGoe(10);
+		assertThat(memberRepository.search(condition)).extracting("userName")
+				.containsExactlyElementsOf(all.stream()
+						.filter(dto -> "teamB".equals(dto.getTeamName()) && dto.getAge() >= 10)
+						.map(MemberTeamDto::getUserName)
+						.toList());
+	}
+
+	@Test
+	public void scatterGatherPageTest() {
+		List<MemberTeamDto> all = memberRepository.search(new MemberSearchCondition());
+		Comparator<MemberTeamDto> order = Comparator.comparing(MemberTeamDto::getAge).reversed()
+				.thenComparing(MemberTeamDto::getTeamName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+				.thenComparing(MemberTeamDto::getMemberId);
+		List<MemberTeamDto> expected = all.stream().sorted(order).toList();
+
+		Page<MemberTeamDto> page = memberRepository.searchpageComplex(new MemberSearchCondition(),
+				PageRequest.of(1, 4, Sort.by(Sort.Order.desc("age"), Sort.Order.asc("teamName"))));
+
+		assertThat(page.getContent()).isEqualTo(expected.subList(4, 8));
+		assertThat(page.getTotalElements()).isEqualTo(13);
+		assertThat(page.getTotalPages()).isEqualTo(4);
+	}
+
+	@Test
+	public void jpaRepositoryFollowsShardsTest() {
+		List<MemberTeamDto> all = memberRepository.search(new MemberSearchCondition());
+		assertThat(memberJpaRepository.search(new MemberSearchCondition())).isEqualTo(all);
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamB");
+		try (Stream<MemberTeamDto> stream = memberJpaRepository.searchStream(condition, 2)) {
+			assertThat(stream.toList()).extracting(MemberTeamDto::getMemberId).containsExactlyInAnyOrderElementsOf(
+					all.stream().filter(dto -> "teamB".equals(dto.getTeamName())).map(MemberTeamDto::getMemberId).toList());
+		}
+		try (Stream<MemberTeamDto> stream = memberJpaRepository.searchStream(new MemberSearchCondition(), 2)) {
+			assertThat(stream.count()).isEqualTo(13);
+		}
+
+		memberJpaRepository.save(new Member("member13", 30, teams.get(1)));
+		assertThat(memberRepository.search(condition)).extracting("userName").contains("member13");
+		assertThat(memberRepository.count()).isZero();
+	}
+
+	@Test
+	public void rostersFollowShardsTest() {
+		List<TeamRosterDto> rosters = teamRepository.findRosters(PageRequest.of(0, 100)).getContent().stream()
+				.filter(roster -> teams.stream().anyMatch(team -> team.getId().equals(roster.getTeamId())))
+				.toList();
+
+		assertThat(rosters).extracting(TeamRosterDto::getTeamName).containsExactly("teamA", "teamB", "teamC");
+		assertThat(rosters).allSatisfy(roster -> {
+			assertThat(roster.getMemberCount()).isEqualTo(4);
+			assertThat(roster.getMembers()).hasSize(4);
+		});
+	}
+
+	@Test
+	public void bulkLoadedTeamsReachShardsTest() {
+		memberBulkLoader.load(Stream.of(new Team("teamD")));
+		Team teamD = em.createQuery("select t from Team t where t.name = 'teamD'", Team.class).getSingleResult();
+		teams.add(teamD);
+		for (EntityManagerFactory shard : shards.shardsFor(null)) {
+			EntityManager shardEm = shard.createEntityManager();
+			assertThat(shardEm.find(Team.class, teamD.getId())).extracting(Team::getName).isEqualTo("teamD");
+			shardEm.close();
+		}
+
+		shards.save(new Member("member13", 30, teamD));
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamD");
+		assertThat(memberRepository.search(condition)).extracting("userName", "teamName").containsExactly(tuple("member13", "teamD"));
+	}
+
+	@Test
+	public void unshardedOperationsFailFastTest() {
+		assertThatThrownBy(() -> memberRepository.searchAfter(new MemberSearchCondition(), null, 10))
+				.isInstanceOf(InvalidDataAccessApiUsageException.class)
+				.hasMessageContaining("searchAfter");
+		assertThatThrownBy(() -> memberRepository.reassignTeam(List.of(1L), teams.get(0).getId()))
+				.isInstanceOf(InvalidDataAccessApiUsageException.class)
+				.hasMessageContaining("reassignTeam");
+		assertThatThrownBy(() -> memberJpaRepository.searchBybuilder(new MemberSearchCondition()))
+				.isInstanceOf(InvalidDataAccessApiUsageException.class)
+				.hasMessageContaining("searchBybuilder");
+		assertThatThrownBy(() -> memberJpaRepository.findAllByIds(List.of(1L)))
+				.isInstanceOf(InvalidDataAccessApiUsageException.class)
+				.hasMessageContaining("findAllByIds");
+		assertThatThrownBy(() -> memberBulkRepository.delete(QMember.member.age.lt(0)))
+				.isInstanceOf(InvalidDataAccessApiUsageException.class)
+				.hasMessageContaining("bulk delete");
+		assertThatThrownBy(() -> memberBulkRepository.update(QMember.member.age.lt(0), update -> update.set(QMember.member.age, 0)))
+				.isInstanceOf(InvalidDataAccessApiUsageException.class)
+				.hasMessageContaining("bulk update");
+		assertThatThrownBy(() -> memberExporter.export(dir.resolve("members.csv"), false))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("export");
+		assertThatThrownBy(() -> snapshot.search(new MemberSearchCondition()))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("snapshot search");
+		assertThatThrownBy(() -> memberBulkLoader.load(Stream.of(new Member("member13", 30))))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("bulk load of Member");
+		assertThat(memberRepository.count()).isZero();
+	}
+}